@@ -0,0 +1,153 @@
+package android.location;
+
+import android.os.Bundle;
+
+/**
+ * Plain JVM stand-in for the framework class, holding the fields read on the per-fix path.
+ */
+public class Location {
+    private String mProvider;
+    private long mTime;
+    private long mElapsedRealtimeNanos;
+    private double mLatitude;
+    private double mLongitude;
+    private double mAltitude;
+    private float mAccuracy;
+    private boolean mHasAccuracy;
+    private float mBearing;
+    private float mSpeed;
+    private boolean mHasSpeed;
+    private boolean mMock;
+    private Bundle mExtras;
+
+    public Location(String provider) {
+        mProvider = provider;
+    }
+
+    public Location(Location l) {
+        mProvider = l.mProvider;
+        mTime = l.mTime;
+        mElapsedRealtimeNanos = l.mElapsedRealtimeNanos;
+        mLatitude = l.mLatitude;
+        mLongitude = l.mLongitude;
+        mAltitude = l.mAltitude;
+        mAccuracy = l.mAccuracy;
+        mHasAccuracy = l.mHasAccuracy;
+        mBearing = l.mBearing;
+        mSpeed = l.mSpeed;
+        mHasSpeed = l.mHasSpeed;
+        mMock = l.mMock;
+        mExtras = l.mExtras;
+    }
+
+    public String getProvider() {
+        return mProvider;
+    }
+
+    public void setProvider(String provider) {
+        mProvider = provider;
+    }
+
+    public long getTime() {
+        return mTime;
+    }
+
+    public void setTime(long time) {
+        mTime = time;
+    }
+
+    public long getElapsedRealtimeNanos() {
+        return mElapsedRealtimeNanos;
+    }
+
+    public void setElapsedRealtimeNanos(long time) {
+        mElapsedRealtimeNanos = time;
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public void setLatitude(double latitude) {
+        mLatitude = latitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    public void setLongitude(double longitude) {
+        mLongitude = longitude;
+    }
+
+    public double getAltitude() {
+        return mAltitude;
+    }
+
+    public void setAltitude(double altitude) {
+        mAltitude = altitude;
+    }
+
+    public float getAccuracy() {
+        return mAccuracy;
+    }
+
+    public void setAccuracy(float accuracy) {
+        mAccuracy = accuracy;
+        mHasAccuracy = true;
+    }
+
+    public boolean hasAccuracy() {
+        return mHasAccuracy;
+    }
+
+    public float getBearing() {
+        return mBearing;
+    }
+
+    public void setBearing(float bearing) {
+        mBearing = bearing;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+        mHasSpeed = true;
+    }
+
+    public boolean hasSpeed() {
+        return mHasSpeed;
+    }
+
+    public boolean isFromMockProvider() {
+        return mMock;
+    }
+
+    public void setIsFromMockProvider(boolean mock) {
+        mMock = mock;
+    }
+
+    /**
+     * Haversine distance, close enough to the framework's ellipsoid computation for benchmarks.
+     */
+    public float distanceTo(Location dest) {
+        double lat1 = Math.toRadians(mLatitude);
+        double lat2 = Math.toRadians(dest.mLatitude);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(dest.mLongitude - mLongitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return (float) (2 * 6371008.8 * Math.asin(Math.sqrt(a)));
+    }
+
+    public Bundle getExtras() {
+        return mExtras;
+    }
+
+    public void setExtras(Bundle extras) {
+        mExtras = extras;
+    }
+}
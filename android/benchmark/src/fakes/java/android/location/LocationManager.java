@@ -0,0 +1,30 @@
+package android.location;
+
+import android.os.Looper;
+
+/**
+ * Plain JVM stand-in for the framework class, with every provider enabled and no fix known.
+ * Tests override it to record registrations and deliver fixes.
+ */
+public class LocationManager {
+    public static final String GPS_PROVIDER = "gps";
+    public static final String NETWORK_PROVIDER = "network";
+    public static final String PASSIVE_PROVIDER = "passive";
+    public static final String FUSED_PROVIDER = "fused";
+    public static final String PROVIDERS_CHANGED_ACTION = "android.location.PROVIDERS_CHANGED";
+
+    public boolean isProviderEnabled(String provider) {
+        return true;
+    }
+
+    public Location getLastKnownLocation(String provider) {
+        return null;
+    }
+
+    public void requestLocationUpdates(
+            String provider, long minTimeMs, float minDistanceM, LocationListener listener, Looper looper) {
+    }
+
+    public void removeUpdates(LocationListener listener) {
+    }
+}
@@ -0,0 +1,29 @@
+package android.os;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class Bundle {
+    private final Map<String, Object> mMap = new LinkedHashMap<>();
+
+    public Set<String> keySet() {
+        return mMap.keySet();
+    }
+
+    public Object get(String key) {
+        return mMap.get(key);
+    }
+
+    public void putInt(String key, int value) {
+        mMap.put(key, value);
+    }
+
+    public void putFloat(String key, float value) {
+        mMap.put(key, value);
+    }
+
+    public void putString(String key, String value) {
+        mMap.put(key, value);
+    }
+}
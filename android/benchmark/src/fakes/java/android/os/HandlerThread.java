@@ -0,0 +1,35 @@
+package android.os;
+
+/**
+ * Plain JVM stand-in for the framework class. Unlike the framework's, the thread is a daemon, so
+ * that it does not keep a benchmark or test JVM alive.
+ */
+public class HandlerThread extends Thread {
+    private Looper mLooper;
+
+    public HandlerThread(String name) {
+        super(name);
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        Looper.prepare();
+        synchronized (this) {
+            mLooper = Looper.myLooper();
+            notifyAll();
+        }
+        Looper.loop();
+    }
+
+    public synchronized Looper getLooper() {
+        while (mLooper == null && isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return mLooper;
+    }
+}
@@ -0,0 +1,102 @@
+package android.os;
+
+import java.util.PriorityQueue;
+
+/**
+ * Plain JVM stand-in for the framework class: runs what its {@link Handler}s post, in order of
+ * their due time, on the thread that called {@link #loop()}. The main looper is never looped, so
+ * whatever is posted to it never runs.
+ */
+public final class Looper {
+    private static final Looper sMainLooper = new Looper(null);
+    private static final ThreadLocal<Looper> sThreadLocal = new ThreadLocal<>();
+
+    private static final class Entry implements Comparable<Entry> {
+        final Handler handler;
+        final Runnable runnable;
+        final long when;
+        final long sequence;
+
+        Entry(Handler handler, Runnable runnable, long when, long sequence) {
+            this.handler = handler;
+            this.runnable = runnable;
+            this.when = when;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(when, other.when);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final Thread mThread;
+    private final PriorityQueue<Entry> mQueue = new PriorityQueue<>();
+    private long mSequence;
+
+    private Looper(Thread thread) {
+        mThread = thread;
+    }
+
+    public static void prepare() {
+        if (sThreadLocal.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        sThreadLocal.set(new Looper(Thread.currentThread()));
+    }
+
+    public static Looper myLooper() {
+        return sThreadLocal.get();
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    public static void loop() {
+        Looper looper = myLooper();
+        if (looper == null) {
+            throw new RuntimeException("No Looper; Looper.prepare() wasn't called on this thread.");
+        }
+        while (true) {
+            Runnable next;
+            try {
+                next = looper.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            next.run();
+        }
+    }
+
+    synchronized void enqueue(Handler handler, Runnable runnable, long uptimeMillis) {
+        mQueue.add(new Entry(handler, runnable, uptimeMillis, mSequence++));
+        notifyAll();
+    }
+
+    synchronized void remove(Handler handler, Runnable runnable) {
+        mQueue.removeIf(entry -> entry.handler == handler && entry.runnable == runnable);
+    }
+
+    private synchronized Runnable take() throws InterruptedException {
+        while (true) {
+            Entry head = mQueue.peek();
+            if (head == null) {
+                wait();
+                continue;
+            }
+            long delay = head.when - SystemClock.uptimeMillis();
+            if (delay > 0) {
+                wait(delay);
+                continue;
+            }
+            mQueue.poll();
+            return head.runnable;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package android.util;
+
+public class Base64 {
+    public static final int NO_WRAP = 2;
+
+    public static String encodeToString(byte[] input, int flags) {
+        return java.util.Base64.getEncoder().encodeToString(input);
+    }
+}
@@ -0,0 +1,12 @@
+package android.util;
+
+import org.xmlpull.v1.XmlPullParser;
+
+/**
+ * Plain JVM stand-in for the framework class. There is no parser, so GPX tracks cannot be read.
+ */
+public class Xml {
+    public static XmlPullParser newPullParser() {
+        throw new UnsupportedOperationException("No XML parser in benchmarks");
+    }
+}
@@ -0,0 +1,9 @@
+package androidx.core.content;
+
+import android.content.Context;
+
+public class ContextCompat {
+    public static int checkSelfPermission(Context context, String permission) {
+        return context.checkSelfPermission(permission);
+    }
+}
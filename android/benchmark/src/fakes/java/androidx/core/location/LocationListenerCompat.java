@@ -0,0 +1,6 @@
+package androidx.core.location;
+
+import android.location.LocationListener;
+
+public interface LocationListenerCompat extends LocationListener {
+}
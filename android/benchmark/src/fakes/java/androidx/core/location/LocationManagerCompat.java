@@ -0,0 +1,26 @@
+package androidx.core.location;
+
+import android.location.LocationManager;
+import android.os.Looper;
+
+/**
+ * Registers through the pre-Android 12 platform call, like the real class does on those versions.
+ */
+public final class LocationManagerCompat {
+    private LocationManagerCompat() {
+    }
+
+    public static void requestLocationUpdates(
+            LocationManager locationManager,
+            String provider,
+            LocationRequestCompat locationRequest,
+            LocationListenerCompat listener,
+            Looper looper) {
+        locationManager.requestLocationUpdates(provider, locationRequest.getIntervalMillis(),
+                locationRequest.getMinUpdateDistanceMeters(), listener, looper);
+    }
+
+    public static void removeUpdates(LocationManager locationManager, LocationListenerCompat listener) {
+        locationManager.removeUpdates(listener);
+    }
+}
@@ -0,0 +1,100 @@
+package androidx.core.location;
+
+import java.util.Objects;
+
+public final class LocationRequestCompat {
+    public static final int QUALITY_HIGH_ACCURACY = 100;
+    public static final int QUALITY_BALANCED_POWER_ACCURACY = 102;
+    public static final int QUALITY_LOW_POWER = 104;
+
+    private final long mIntervalMillis;
+    private final int mQuality;
+    private final long mMinUpdateIntervalMillis;
+    private final float mMinUpdateDistanceMeters;
+    private final long mMaxUpdateDelayMillis;
+
+    private LocationRequestCompat(Builder builder) {
+        mIntervalMillis = builder.mIntervalMillis;
+        mQuality = builder.mQuality;
+        mMinUpdateIntervalMillis = builder.mMinUpdateIntervalMillis >= 0
+                ? builder.mMinUpdateIntervalMillis
+                : builder.mIntervalMillis;
+        mMinUpdateDistanceMeters = builder.mMinUpdateDistanceMeters;
+        mMaxUpdateDelayMillis = builder.mMaxUpdateDelayMillis;
+    }
+
+    public long getIntervalMillis() {
+        return mIntervalMillis;
+    }
+
+    public int getQuality() {
+        return mQuality;
+    }
+
+    public long getMinUpdateIntervalMillis() {
+        return mMinUpdateIntervalMillis;
+    }
+
+    public float getMinUpdateDistanceMeters() {
+        return mMinUpdateDistanceMeters;
+    }
+
+    public long getMaxUpdateDelayMillis() {
+        return mMaxUpdateDelayMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LocationRequestCompat)) {
+            return false;
+        }
+        LocationRequestCompat that = (LocationRequestCompat) o;
+        return mIntervalMillis == that.mIntervalMillis
+                && mQuality == that.mQuality
+                && mMinUpdateIntervalMillis == that.mMinUpdateIntervalMillis
+                && Float.compare(mMinUpdateDistanceMeters, that.mMinUpdateDistanceMeters) == 0
+                && mMaxUpdateDelayMillis == that.mMaxUpdateDelayMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mIntervalMillis, mQuality, mMinUpdateIntervalMillis, mMinUpdateDistanceMeters,
+                mMaxUpdateDelayMillis);
+    }
+
+    public static final class Builder {
+        private final long mIntervalMillis;
+        private int mQuality = QUALITY_BALANCED_POWER_ACCURACY;
+        private long mMinUpdateIntervalMillis = -1;
+        private float mMinUpdateDistanceMeters;
+        private long mMaxUpdateDelayMillis;
+
+        public Builder(long intervalMillis) {
+            mIntervalMillis = intervalMillis;
+        }
+
+        public Builder setQuality(int quality) {
+            mQuality = quality;
+            return this;
+        }
+
+        public Builder setMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+            mMinUpdateIntervalMillis = minUpdateIntervalMillis;
+            return this;
+        }
+
+        public Builder setMinUpdateDistanceMeters(float minUpdateDistanceMeters) {
+            mMinUpdateDistanceMeters = minUpdateDistanceMeters;
+            return this;
+        }
+
+        public Builder setMaxUpdateDelayMillis(long maxUpdateDelayMillis) {
+            mMaxUpdateDelayMillis = maxUpdateDelayMillis;
+            return this;
+        }
+
+        public LocationRequestCompat build() {
+            return new LocationRequestCompat(this);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.facebook.common.logging;
+
+public final class FLog {
+    private FLog() {
+    }
+
+    public static void i(String tag, String msg) {
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.facebook.react.bridge;
+
+import java.lang.reflect.Array;
+
+public class Arguments {
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+
+    public static WritableArray fromArray(Object array) {
+        WritableArray result = createArray();
+        for (int i = 0; i < Array.getLength(array); i++) {
+            Object value = Array.get(array, i);
+            if (value instanceof Number) {
+                result.pushDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                result.pushBoolean((Boolean) value);
+            } else {
+                result.pushString(String.valueOf(value));
+            }
+        }
+        return result;
+    }
+}
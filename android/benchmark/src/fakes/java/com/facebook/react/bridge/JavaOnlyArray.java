@@ -0,0 +1,55 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/**
+ * ArrayList-backed array, mirroring the JVM-only array React Native ships for tests.
+ */
+public class JavaOnlyArray implements WritableArray {
+    private final ArrayList<Object> mBackingList = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return mBackingList.size();
+    }
+
+    @Override
+    public Object get(int index) {
+        return mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) mBackingList.get(index);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushMap(ReadableMap map) {
+        mBackingList.add(map);
+    }
+
+    @Override
+    public void pushArray(ReadableArray array) {
+        mBackingList.add(array);
+    }
+}
@@ -0,0 +1,9 @@
+package com.facebook.react.bridge;
+
+import android.content.Context;
+
+public class ReactApplicationContext extends Context {
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        throw new UnsupportedOperationException("No JS runtime in benchmarks");
+    }
+}
@@ -0,0 +1,9 @@
+package com.facebook.react.bridge;
+
+public interface ReadableArray {
+    int size();
+
+    Object get(int index);
+
+    ReadableMap getMap(int index);
+}
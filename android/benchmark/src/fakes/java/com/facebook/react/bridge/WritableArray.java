@@ -0,0 +1,15 @@
+package com.facebook.react.bridge;
+
+public interface WritableArray extends ReadableArray {
+    void pushDouble(double value);
+
+    void pushInt(int value);
+
+    void pushString(String value);
+
+    void pushBoolean(boolean value);
+
+    void pushMap(ReadableMap map);
+
+    void pushArray(ReadableArray array);
+}
@@ -0,0 +1,50 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    static Location location(String provider, long time, float accuracy) {
+        Location location = new Location(provider);
+        location.setTime(time);
+        location.setLatitude(52.2297);
+        location.setLongitude(21.0122);
+        location.setAltitude(110.5);
+        location.setAccuracy(accuracy);
+        location.setBearing(87.0f);
+        location.setSpeed(1.4f);
+        return location;
+    }
+
+    /**
+     * A fix carrying the extras a GPS provider typically attaches.
+     */
+    static Location locationWithExtras(String provider, long time, float accuracy) {
+        Bundle extras = new Bundle();
+        extras.putInt("satellites", 9);
+        extras.putFloat("meanCn0", 31.5f);
+        extras.putString("networkLocationType", "wifi");
+        Location location = location(provider, time, accuracy);
+        location.setExtras(extras);
+        return location;
+    }
+
+    /**
+     * Options as sent by a typical `watchPosition` call.
+     */
+    static JavaOnlyMap watchOptions() {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putBoolean("enableHighAccuracy", true);
+        map.putInt("interval", 1000);
+        map.putInt("fastestInterval", 500);
+        map.putDouble("timeout", 30000);
+        map.putDouble("maximumAge", 10000);
+        map.putDouble("distanceFilter", 5);
+        return map;
+    }
+}
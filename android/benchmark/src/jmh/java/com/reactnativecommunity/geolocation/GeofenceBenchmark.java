@@ -0,0 +1,80 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of testing one fix against many geofences spread over a city, half circles and half
+ * polygons, as the device walks through it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeofenceBenchmark {
+    private static final double CITY_DEGREES = 0.3;
+
+    @Param({"1000", "10000"})
+    public int fences;
+
+    private GeofenceIndex mIndex;
+    private Location[] mWalk;
+    private int mStep;
+    private int mTransitions;
+    private final GeofenceIndex.Listener mListener = (fenceId, transition, location) -> mTransitions++;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mIndex = new GeofenceIndex();
+        for (int i = 0; i < fences; i++) {
+            double latitude = 52.1 + random.nextDouble() * CITY_DEGREES;
+            double longitude = 20.9 + random.nextDouble() * CITY_DEGREES;
+            JavaOnlyMap fence = new JavaOnlyMap();
+            fence.putString("id", "fence-" + i);
+            if (i % 2 == 0) {
+                fence.putDouble("latitude", latitude);
+                fence.putDouble("longitude", longitude);
+                fence.putDouble("radius", 50 + random.nextInt(200));
+            } else {
+                JavaOnlyArray polygon = new JavaOnlyArray();
+                for (int p = 0; p < 6; p++) {
+                    double angle = 2 * Math.PI * p / 6;
+                    JavaOnlyMap point = new JavaOnlyMap();
+                    point.putDouble("latitude", latitude + 0.002 * Math.sin(angle));
+                    point.putDouble("longitude", longitude + 0.003 * Math.cos(angle));
+                    polygon.pushMap(point);
+                }
+                fence.putArray("polygon", polygon);
+            }
+            mIndex.add(fence);
+        }
+
+        mWalk = new Location[4096];
+        for (int i = 0; i < mWalk.length; i++) {
+            Location location = Fixtures.location("gps", 1700000000000L + i * 1000L, 5);
+            location.setLatitude(52.1 + CITY_DEGREES * i / mWalk.length);
+            location.setLongitude(20.9 + CITY_DEGREES * i / mWalk.length);
+            mWalk[i] = location;
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        mIndex.update(mWalk[mStep++ & (mWalk.length - 1)], mListener);
+        return mTransitions;
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Copy of {@code BaseLocationManager.locationToMap} as of 3.3.0, kept as the baseline the
+ * current serializer is compared against.
+ */
+final class LegacyLocationSerializer {
+    private LegacyLocationSerializer() {
+    }
+
+    static WritableMap locationToMap(Location location) {
+        WritableMap map = Arguments.createMap();
+        WritableMap coords = Arguments.createMap();
+        coords.putDouble("latitude", location.getLatitude());
+        coords.putDouble("longitude", location.getLongitude());
+        coords.putDouble("altitude", location.getAltitude());
+        coords.putDouble("accuracy", location.getAccuracy());
+        coords.putDouble("heading", location.getBearing());
+        coords.putDouble("speed", location.getSpeed());
+        map.putMap("coords", coords);
+        map.putDouble("timestamp", location.getTime());
+
+        Bundle bundle = location.getExtras();
+        if (bundle != null) {
+            WritableMap extras = Arguments.createMap();
+            for (String key: bundle.keySet()) {
+                BaseLocationManager.putIntoMap(extras, key, bundle.get(key));
+            }
+
+            map.putMap("extras", extras);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            map.putBoolean("mocked", location.isFromMockProvider());
+        }
+
+        return map;
+    }
+}
@@ -0,0 +1,61 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one fix into the payload sent to JS.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocationSerializationBenchmark {
+    private Location mLocation;
+    private double[] mPacked;
+    private CompactLocationEncoder mEncoder;
+
+    @Setup
+    public void setUp() {
+        mLocation = Fixtures.locationWithExtras("gps", 1700000000000L, 4.5f);
+        mPacked = new double[LocationSerializer.FIELD_COUNT];
+        mEncoder = new CompactLocationEncoder();
+    }
+
+    @Benchmark
+    public WritableArray compactEncode() {
+        return mEncoder.encode(1, mLocation);
+    }
+
+    @Benchmark
+    public WritableMap legacyLocationToMap() {
+        return LegacyLocationSerializer.locationToMap(mLocation);
+    }
+
+    @Benchmark
+    public WritableMap locationToMap() {
+        return BaseLocationManager.locationToMap(mLocation, false);
+    }
+
+    @Benchmark
+    public WritableMap locationToMapWithExtras() {
+        return BaseLocationManager.locationToMap(mLocation, true);
+    }
+
+    @Benchmark
+    public double[] writePacked() {
+        LocationSerializer.write(mLocation, mPacked, 0);
+        return mPacked;
+    }
+}
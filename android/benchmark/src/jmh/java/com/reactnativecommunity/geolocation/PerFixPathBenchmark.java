@@ -0,0 +1,50 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The remaining per-request and per-fix work outside of serialization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PerFixPathBenchmark {
+    private JavaOnlyMap mOptions;
+    private Location mCurrentBest;
+    private Location mCandidate;
+
+    @Setup
+    public void setUp() {
+        mOptions = Fixtures.watchOptions();
+        mCurrentBest = Fixtures.location("network", 1700000000000L, 35f);
+        mCandidate = Fixtures.location("gps", 1700000001000L, 4.5f);
+    }
+
+    @Benchmark
+    public WritableMap buildError() {
+        return PositionError.buildError(PositionError.TIMEOUT, "Location request timed out");
+    }
+
+    @Benchmark
+    public BaseLocationManager.LocationOptions locationOptionsFromReactMap() {
+        return BaseLocationManager.LocationOptions.fromReactMap(mOptions);
+    }
+
+    @Benchmark
+    public boolean isBetterLocation() {
+        return BaseLocationManager.isBetterLocation(mCandidate, mCurrentBest);
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The geohash and tile stage: the cell bits computed for every fix to detect cell changes, and
+ * serializing a fix with the cells added, to compare with
+ * {@link LocationSerializationBenchmark#locationToMap}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialEncodingBenchmark {
+    private Location mLocation;
+
+    @Setup
+    public void setUp() {
+        mLocation = Fixtures.location("gps", 1700000000000L, 4.5f);
+        SpatialEncoder.getInstance().configure(9, 18);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpatialEncoder.getInstance().configure(0, 0);
+    }
+
+    @Benchmark
+    public long cells() {
+        return SpatialEncoder.geohash(mLocation.getLatitude(), mLocation.getLongitude(), 9)
+                ^ SpatialEncoder.tile(mLocation.getLatitude(), mLocation.getLongitude(), 18);
+    }
+
+    @Benchmark
+    public WritableMap locationToMapWithCells() {
+        return BaseLocationManager.locationToMap(mLocation, false);
+    }
+}
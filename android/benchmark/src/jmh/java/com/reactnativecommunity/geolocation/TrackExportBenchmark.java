@@ -0,0 +1,67 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handing a recorded track of 100k fixes over to JS, one map per fix ({@code readTrack})
+ * versus one columnar buffer ({@code exportTrack}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrackExportBenchmark {
+    private static final int FIXES = 100000;
+
+    private File mDirectory;
+    private TrackRecorder mRecorder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("track").toFile();
+        mRecorder = new TrackRecorder(mDirectory);
+        mRecorder.open();
+        for (int i = 0; i < FIXES; i++) {
+            Location location = Fixtures.location("gps", 1700000000000L + i * 1000L, 4.5f);
+            mRecorder.append(location);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mRecorder.close();
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    @Benchmark
+    public WritableMap readTrack() throws IOException {
+        return mRecorder.read(0, Double.MAX_VALUE, 0, FIXES);
+    }
+
+    @Benchmark
+    public WritableMap exportTrack() throws IOException {
+        return mRecorder.export(0, Double.MAX_VALUE, 0, FIXES);
+    }
+}
@@ -0,0 +1,58 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Our side of warm start: taking in the last known locations of every provider, and answering the
+ * first {@code getCurrentPosition} from memory. The platform lookups warm start moves off the
+ * first request cannot be measured on a plain JVM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WarmStartBenchmark {
+    private Location[] mLastKnown;
+    private JavaOnlyMap mOptions;
+
+    @Setup
+    public void setUp() {
+        mLastKnown = new Location[]{
+                Fixtures.location("gps", 1700000000000L, 4.5f),
+                Fixtures.location("network", 1700000001000L, 35f),
+                Fixtures.location("fused", 1700000001500L, 12f),
+                Fixtures.location("passive", 1699999990000L, 60f),
+        };
+        mOptions = new JavaOnlyMap();
+        mOptions.putBoolean("enableHighAccuracy", true);
+        mOptions.putDouble("timeout", 10000);
+        LastLocationCache.getInstance().put(mLastKnown[0]);
+    }
+
+    @Benchmark
+    public void prefetch() {
+        for (Location location : mLastKnown) {
+            LastLocationCache.getInstance().put(location);
+        }
+    }
+
+    @Benchmark
+    public WritableMap firstRequestFromMemory() {
+        BaseLocationManager.LocationOptions options = BaseLocationManager.LocationOptions.fromReactMap(mOptions);
+        Location cached = LastLocationCache.getInstance()
+                .get(options.accuracy, options.maximumAge, 1700000002000L);
+        return BaseLocationManager.locationToMap(cached, options.includeExtras);
+    }
+}
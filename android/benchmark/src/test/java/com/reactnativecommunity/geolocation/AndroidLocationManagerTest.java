@@ -0,0 +1,130 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class AndroidLocationManagerTest {
+    private static final Callback IGNORED = args -> {
+    };
+
+    private FakeLocationContext mContext;
+    private AndroidLocationManager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = new FakeLocationContext();
+        mManager = new AndroidLocationManager(mContext);
+    }
+
+    @Test
+    public void passiveWatchNeverRegistersGpsOrNetwork() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putString("accuracy", "passive");
+        options.putBoolean("enableHighAccuracy", true);
+        mManager.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+
+        assertEquals(Collections.singletonList(LocationManager.PASSIVE_PROVIDER),
+                mContext.locationManager.requestedProviders());
+
+        // fixes other apps asked for still reach the watch
+        Location fix = new Location(LocationManager.PASSIVE_PROVIDER);
+        fix.setTime(System.currentTimeMillis());
+        fix.setLatitude(52.2297);
+        fix.setLongitude(21.0122);
+        fix.setAccuracy(12);
+        mContext.locationManager.deliver(fix);
+        FakeLocationContext.drainLocationThread();
+        assertEquals(1, mContext.events("geolocationDidChange").size());
+
+        mManager.stopObserving(1);
+        FakeLocationContext.drainLocationThread();
+        assertTrue(mContext.locationManager.active().isEmpty());
+        assertEquals(Collections.singletonList(LocationManager.PASSIVE_PROVIDER),
+                mContext.locationManager.requestedProviders());
+    }
+
+    @Test
+    public void passiveCurrentPositionNeverRegistersGpsOrNetwork() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putString("accuracy", "passive");
+        options.putBoolean("race", true);
+        options.putDouble("maximumAge", 0);
+        options.putDouble("timeout", 50);
+        mManager.getCurrentLocationData(options, IGNORED, IGNORED);
+
+        List<String> providers = mContext.locationManager.requestedProviders();
+        assertEquals(Collections.singletonList(LocationManager.PASSIVE_PROVIDER), providers);
+    }
+
+    @Test
+    public void onlyWatchesAskingForExtrasReceiveThem() throws Exception {
+        JavaOnlyMap plain = new JavaOnlyMap();
+        plain.putBoolean("enableHighAccuracy", true);
+        plain.putDouble("distanceFilter", 0);
+        JavaOnlyMap extras = new JavaOnlyMap();
+        extras.putBoolean("enableHighAccuracy", true);
+        extras.putDouble("distanceFilter", 0);
+        extras.putBoolean("includeExtras", true);
+        mManager.startObserving(1, plain);
+        mManager.startObserving(2, extras);
+        mManager.startObserving(3, plain);
+        FakeLocationContext.drainLocationThread();
+
+        Location fix = new Location(LocationManager.GPS_PROVIDER);
+        fix.setTime(System.currentTimeMillis());
+        fix.setLatitude(52.2297);
+        fix.setLongitude(21.0122);
+        fix.setAccuracy(5);
+        Bundle bundle = new Bundle();
+        bundle.putInt("satellites", 7);
+        fix.setExtras(bundle);
+        mContext.locationManager.deliver(fix);
+        FakeLocationContext.drainLocationThread();
+
+        List<FakeLocationContext.Event> events = mContext.events("geolocationDidChange");
+        assertEquals(2, events.size());
+        for (FakeLocationContext.Event event : events) {
+            ReadableMap location = (ReadableMap) event.data;
+            ReadableArray watchIds = location.getArray(LocationSerializer.KEY_WATCH_IDS);
+            if (watchIds.size() == 1) {
+                assertEquals(2, watchIds.get(0));
+                assertEquals(7, location.getMap(LocationSerializer.KEY_EXTRAS).getInt("satellites"));
+            } else {
+                assertEquals(2, watchIds.size());
+                assertEquals(1, watchIds.get(0));
+                assertEquals(3, watchIds.get(1));
+                assertFalse(location.hasKey(LocationSerializer.KEY_EXTRAS));
+            }
+        }
+        mManager.stopObserving();
+    }
+
+    @Test
+    public void activeWatchRegistersItsProvider() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        mManager.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+
+        assertEquals(Collections.singletonList(LocationManager.GPS_PROVIDER),
+                mContext.locationManager.requestedProviders());
+        mManager.stopObserving(1);
+    }
+}
@@ -0,0 +1,175 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+
+import javax.annotation.Nullable;
+
+/**
+ * Switching location engines hands everything the old manager was registered for over to the new
+ * one, each standing in for an engine with its own {@link LocationManager}.
+ */
+public class EngineSwitchTest {
+    private static final int REPLAYED_FIXES = 5;
+    private static final double REPLAYED_LATITUDE = 10;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private FakeLocationContext mOldContext;
+    private FakeLocationContext mNewContext;
+    private AndroidLocationManager mOld;
+    private AndroidLocationManager mNew;
+    private TrackRecorder mRecorder;
+
+    @Before
+    public void setUp() throws Exception {
+        mOldContext = new FakeLocationContext();
+        mNewContext = new FakeLocationContext();
+        mOld = new AndroidLocationManager(mOldContext);
+        mNew = new AndroidLocationManager(mNewContext);
+        mRecorder = new TrackRecorder(mFolder.newFolder("track"));
+        mRecorder.open();
+    }
+
+    @After
+    public void tearDown() {
+        mRecorder.close();
+    }
+
+    @Test
+    public void watchesRecordingAndGeofencesMoveToTheNewEngine() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putDouble("distanceFilter", 0);
+        mOld.startObserving(7, options);
+        mOld.startRecording(mRecorder, options);
+        GeofenceIndex geofences = new GeofenceIndex();
+        JavaOnlyMap fence = new JavaOnlyMap();
+        fence.putString("id", "home");
+        fence.putDouble("latitude", 52.2297);
+        fence.putDouble("longitude", 21.0122);
+        fence.putDouble("radius", 100);
+        geofences.add(fence);
+        mOld.startGeofencing(geofences, options);
+        FakeLocationContext.drainLocationThread();
+        assertFalse(mOldContext.locationManager.active().isEmpty());
+
+        mOld.handOver(mNew);
+        FakeLocationContext.drainLocationThread();
+
+        assertTrue(mOldContext.locationManager.active().isEmpty());
+        assertFalse(mOld.isObserving());
+        assertTrue(mNew.isObserving());
+        assertEquals(Collections.singletonList(LocationManager.GPS_PROVIDER),
+                mNewContext.locationManager.requestedProviders());
+
+        // fixes of the old engine go nowhere, those of the new one reach the watch, the
+        // recorder and the geofences
+        mOldContext.locationManager.deliver(fix());
+        mNewContext.locationManager.deliver(fix());
+        FakeLocationContext.drainLocationThread();
+        assertTrue(mOldContext.events.isEmpty());
+        assertEquals(1, mNewContext.events("geolocationDidChange").size());
+        ReadableMap location = (ReadableMap) mNewContext.events("geolocationDidChange").get(0).data;
+        ReadableArray watchIds = location.getArray(LocationSerializer.KEY_WATCH_IDS);
+        assertEquals(1, watchIds.size());
+        assertEquals(7, watchIds.get(0));
+        assertEquals(1, mNewContext.events("geolocationGeofenceTransition").size());
+        assertEquals(LocationSerializer.FIELD_COUNT, mRecorder.readPacked().length);
+
+        // the watch is still known by its id, and recording and geofencing keep the provider
+        // running without it
+        mNew.stopObserving(7);
+        FakeLocationContext.drainLocationThread();
+        assertEquals(1, mNewContext.locationManager.active().size());
+        mNew.stopRecording();
+        mNew.stopGeofencing();
+        FakeLocationContext.drainLocationThread();
+        assertTrue(mNewContext.locationManager.active().isEmpty());
+    }
+
+    @Test
+    public void switchingWithoutWatchesRegistersNothing() throws Exception {
+        mOld.handOver(mNew);
+        FakeLocationContext.drainLocationThread();
+
+        assertFalse(mNew.isObserving());
+        assertTrue(mNewContext.locationManager.requested.isEmpty());
+    }
+
+    @Test
+    public void replayedFixesDoNotOutliveTheReplayEngine() throws Exception {
+        // played back 1000 times faster, so the replayed timestamps run minutes ahead of the clock
+        File track = mFolder.newFolder("replay");
+        TrackRecorder replayed = new TrackRecorder(track);
+        replayed.open();
+        for (int i = 0; i < REPLAYED_FIXES; i++) {
+            replayed.append(Tracks.fix(1700000000000L + i * 60000L, REPLAYED_LATITUDE + i * 0.001, 21.0122, 5));
+        }
+        replayed.close();
+        ReplayLocationManager replay = new ReplayLocationManager(mOldContext, track, 1000, false);
+
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putDouble("distanceFilter", 0);
+        replay.startObserving(1, options);
+        replay.startRecording(mRecorder, options);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mOldContext.events("geolocationDidChange").size() < REPLAYED_FIXES
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(REPLAYED_FIXES, mOldContext.events("geolocationDidChange").size());
+
+        replay.handOver(mNew);
+        FakeLocationContext.drainLocationThread();
+
+        // nothing replayed was recorded or cached for the live engine
+        assertEquals(0, mRecorder.readPacked().length);
+        assertNotReplayed(LastLocationCache.getInstance().getMostRecent());
+        assertNotReplayed(LastLocationCache.getInstance()
+                .get(BaseLocationManager.LocationOptions.ACCURACY_HIGH, Double.POSITIVE_INFINITY, System.currentTimeMillis()));
+
+        // and the first live fix is the most recent one right away
+        Location live = fix();
+        mNewContext.locationManager.deliver(live);
+        FakeLocationContext.drainLocationThread();
+        assertEquals(1, mNewContext.events("geolocationDidChange").size());
+        assertSame(live, LastLocationCache.getInstance().getMostRecent());
+        assertEquals(LocationSerializer.FIELD_COUNT, mRecorder.readPacked().length);
+
+        mNew.stopObserving(1);
+        mNew.stopRecording();
+    }
+
+    private static void assertNotReplayed(@Nullable Location location) {
+        if (location != null) {
+            assertNotEquals("replay", location.getProvider());
+            assertTrue(location.getTime() <= System.currentTimeMillis());
+        }
+    }
+
+    private static Location fix() {
+        return Tracks.fix(System.currentTimeMillis(), 52.2297, 21.0122, 5);
+    }
+}
@@ -0,0 +1,148 @@
+package com.reactnativecommunity.geolocation;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A React context whose {@link LocationManager} records provider registrations, and whose event
+ * emitter records what is sent to JS.
+ */
+class FakeLocationContext extends ReactApplicationContext {
+    static final class Registration {
+        final String provider;
+        final long minTimeMs;
+        final LocationListener listener;
+        final Looper looper;
+
+        Registration(String provider, long minTimeMs, LocationListener listener, Looper looper) {
+            this.provider = provider;
+            this.minTimeMs = minTimeMs;
+            this.listener = listener;
+            this.looper = looper;
+        }
+    }
+
+    static final class Event {
+        final String name;
+        final Object data;
+        final Thread thread;
+
+        Event(String name, Object data, Thread thread) {
+            this.name = name;
+            this.data = data;
+            this.thread = thread;
+        }
+    }
+
+    final FakeLocationManager locationManager = new FakeLocationManager();
+    final List<Event> events = new ArrayList<>();
+
+    private final DeviceEventManagerModule.RCTDeviceEventEmitter mEmitter = (eventName, data) -> {
+        synchronized (events) {
+            events.add(new Event(eventName, data, Thread.currentThread()));
+        }
+    };
+
+    @Override
+    public Object getSystemService(String name) {
+        return Context.LOCATION_SERVICE.equals(name) ? locationManager : null;
+    }
+
+    @Override
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return jsInterface.cast(mEmitter);
+    }
+
+    List<Event> events(String name) {
+        List<Event> named = new ArrayList<>();
+        synchronized (events) {
+            for (Event event : events) {
+                if (event.name.equals(name)) {
+                    named.add(event);
+                }
+            }
+        }
+        return named;
+    }
+
+    /**
+     * Waits for everything posted to the location thread so far to run.
+     */
+    static void drainLocationThread() throws InterruptedException {
+        CountDownLatch drained = new CountDownLatch(1);
+        LocationThread.getHandler().post(drained::countDown);
+        if (!drained.await(5, TimeUnit.SECONDS)) {
+            throw new AssertionError("the location thread is stuck");
+        }
+    }
+
+    static final class FakeLocationManager extends LocationManager {
+        private static final long BINDER_CALL_NANOS = 50000;
+
+        /**
+         * Every registration ever made, in order.
+         */
+        final List<Registration> requested = new ArrayList<>();
+        /**
+         * The registrations still active, by listener.
+         */
+        final Map<LocationListener, Registration> active = new LinkedHashMap<>();
+
+        @Override
+        public void requestLocationUpdates(
+                String provider, long minTimeMs, float minDistanceM, LocationListener listener, Looper looper) {
+            // a binder call on a device, which gives other threads time to get in between
+            LockSupport.parkNanos(BINDER_CALL_NANOS);
+            synchronized (this) {
+                Registration registration = new Registration(provider, minTimeMs, listener, looper);
+                requested.add(registration);
+                active.put(listener, registration);
+            }
+        }
+
+        @Override
+        public synchronized void removeUpdates(LocationListener listener) {
+            active.remove(listener);
+        }
+
+        synchronized List<String> requestedProviders() {
+            List<String> providers = new ArrayList<>();
+            for (Registration registration : requested) {
+                providers.add(registration.provider);
+            }
+            return providers;
+        }
+
+        synchronized List<Registration> active() {
+            return new ArrayList<>(active.values());
+        }
+
+        /**
+         * Delivers the fix to every active registration of its provider, on the looper it was
+         * registered with like the platform does.
+         */
+        void deliver(final Location location) {
+            for (final Registration registration : active()) {
+                if (registration.provider.equals(location.getProvider())) {
+                    new Handler(registration.looper).post(() -> registration.listener.onLocationChanged(location));
+                }
+            }
+        }
+    }
+}
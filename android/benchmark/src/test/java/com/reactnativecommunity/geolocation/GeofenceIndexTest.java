@@ -0,0 +1,185 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves a simulated device through circular and polygonal fences, and checks the transitions the
+ * index reports along the way.
+ */
+public class GeofenceIndexTest {
+    private static final double LATITUDE = 52.2297;
+    private static final double LONGITUDE = 21.0122;
+    /**
+     * Polygon corners are given in steps of this many degrees.
+     */
+    private static final double STEP = 0.001;
+
+    private final GeofenceIndex mIndex = new GeofenceIndex();
+    private final List<String> mTransitions = new ArrayList<>();
+    private final GeofenceIndex.Listener mListener =
+            (fenceId, transition, location) -> mTransitions.add(fenceId + ":" + transition);
+
+    @Test
+    public void circleContainsPointsUpToItsRadius() {
+        mIndex.add(circle("home", 100, -1));
+
+        assertTransitions(at(0, 99.5), "home:enter");
+        assertTransitions(at(0, 100.5), "home:exit");
+        assertTransitions(at(-99.5, 0), "home:enter");
+        assertTransitions(at(-100.5, 0), "home:exit");
+        assertTransitions(at(99.5, 0), "home:enter");
+        assertTransitions(at(0, 0));
+    }
+
+    @Test
+    public void concavePolygonExcludesItsNotch() {
+        // a U opening to the north: a bar along the south edge and two arms, with the notch
+        // between the arms inside the bounding box but outside the fence
+        mIndex.add(polygon("u", new double[][]{
+                {0, 0}, {0, 3}, {3, 3}, {3, 2}, {1, 2}, {1, 1}, {3, 1}, {3, 0},
+        }));
+
+        assertTransitions(corner(2, 1.5));
+        assertTransitions(corner(4, 0.5));
+        assertTransitions(corner(0.5, 1.5), "u:enter");
+        assertTransitions(corner(2, 0.5));
+        assertTransitions(corner(2, 1.5), "u:exit");
+        assertTransitions(corner(2, 2.5), "u:enter");
+    }
+
+    @Test
+    public void fenceSpanningSeveralCellsIsFoundFromEachOfThem() {
+        // about 0.036 degrees across, so it covers a few 0.01 degree cells each way
+        mIndex.add(circle("district", 2000, -1));
+
+        assertTransitions(at(1500, 0), "district:enter");
+        assertTransitions(at(-1500, 0));
+        assertTransitions(at(0, 1500));
+        assertTransitions(at(0, -2500), "district:exit");
+        assertTransitions(at(0, -1500), "district:enter");
+        assertTransitions(at(-2500, 0), "district:exit");
+    }
+
+    @Test
+    public void largeFenceIsTestedAgainstEveryFix() {
+        // far more than 256 cells, so it goes to the list of large fences
+        mIndex.add(circle("region", 50000, -1));
+        mIndex.add(circle("home", 100, -1));
+
+        assertTransitions(at(40000, 0), "region:enter");
+        assertTransitions(at(0, 0), "home:enter");
+        assertTransitions(at(-40000, 0), "home:exit");
+        assertTransitions(at(-60000, 0), "region:exit");
+
+        mIndex.remove("region");
+        assertTransitions(at(40000, 0));
+    }
+
+    @Test
+    public void dwellFollowsEnterOnceAfterTheDwellTime() {
+        mIndex.add(circle("shop", 100, 60000));
+
+        assertTransitions(at(0, 0, 0), "shop:enter");
+        assertTransitions(at(30, 10, 0));
+        assertTransitions(at(60, 0, 10), "shop:dwell");
+        assertTransitions(at(90, 0, 0));
+        assertTransitions(at(100, 200, 0), "shop:exit");
+
+        // the dwell time starts over on every entry
+        assertTransitions(at(110, 0, 0), "shop:enter");
+        assertTransitions(at(169, 0, 0));
+        assertTransitions(at(170, 0, 0), "shop:dwell");
+    }
+
+    @Test
+    public void zeroDwellTimeDwellsOnEntry() {
+        mIndex.add(circle("door", 100, 0));
+
+        assertTransitions(at(0, 0), "door:enter", "door:dwell");
+        assertTransitions(at(0, 0));
+    }
+
+    @Test
+    public void removedAndClearedFencesReportNothing() {
+        mIndex.add(circle("home", 100, -1));
+        mIndex.add(circle("block", 300, -1));
+        assertTransitions(at(0, 0), "home:enter", "block:enter");
+
+        // removing a fence the device is in does not report an exit
+        mIndex.remove("home");
+        assertTransitions(at(200, 0));
+        assertTransitions(at(0, 0));
+        assertTransitions(at(400, 0), "block:exit");
+
+        // adding a fence with a known id replaces it
+        mIndex.add(circle("block", 500, -1));
+        assertTransitions(at(400, 0), "block:enter");
+
+        assertFalse(mIndex.isEmpty());
+        mIndex.clear();
+        assertTrue(mIndex.isEmpty());
+        assertTransitions(at(0, 0));
+        assertTransitions(at(2000, 0));
+    }
+
+    private void assertTransitions(Location location, String... expected) {
+        mTransitions.clear();
+        mIndex.update(location, mListener);
+        assertEquals(expected.length == 0 ? Collections.emptyList() : Arrays.asList(expected), mTransitions);
+    }
+
+    private static JavaOnlyMap circle(String id, double radius, long dwellTime) {
+        JavaOnlyMap fence = new JavaOnlyMap();
+        fence.putString("id", id);
+        fence.putDouble("latitude", LATITUDE);
+        fence.putDouble("longitude", LONGITUDE);
+        fence.putDouble("radius", radius);
+        if (dwellTime >= 0) {
+            fence.putDouble("dwellTime", dwellTime);
+        }
+        return fence;
+    }
+
+    /**
+     * @param corners {@code {latitude, longitude}} pairs, in {@link #STEP}s from the origin
+     */
+    private static JavaOnlyMap polygon(String id, double[][] corners) {
+        JavaOnlyArray points = new JavaOnlyArray();
+        for (double[] corner : corners) {
+            JavaOnlyMap point = new JavaOnlyMap();
+            point.putDouble("latitude", LATITUDE + corner[0] * STEP);
+            point.putDouble("longitude", LONGITUDE + corner[1] * STEP);
+            points.pushMap(point);
+        }
+        JavaOnlyMap fence = new JavaOnlyMap();
+        fence.putString("id", id);
+        fence.putArray("polygon", points);
+        return fence;
+    }
+
+    private static Location corner(double latitudeSteps, double longitudeSteps) {
+        return Tracks.fix(0, LATITUDE + latitudeSteps * STEP, LONGITUDE + longitudeSteps * STEP, 5);
+    }
+
+    private static Location at(double northMeters, double eastMeters) {
+        return at(0, northMeters, eastMeters);
+    }
+
+    private static Location at(int second, double northMeters, double eastMeters) {
+        return Tracks.moved(Tracks.fix(second * 1000L, LATITUDE, LONGITUDE, 5), northMeters, eastMeters);
+    }
+}
@@ -0,0 +1,119 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a recorded walk, with outliers injected, through the filter stage of a watch.
+ */
+public class LocationFilterTest {
+    private List<Location> mWalk;
+
+    @Before
+    public void setUp() throws Exception {
+        mWalk = Tracks.load("walk.csv");
+    }
+
+    @Test
+    public void passesTheRecordedTrackUnchanged() {
+        LocationFilter filter = filter(false, 10);
+        for (Location location : mWalk) {
+            assertSame(location, filter.process(location));
+        }
+    }
+
+    @Test
+    public void rejectsJumps() {
+        LocationFilter filter = filter(false, 10);
+        for (int i = 0; i < mWalk.size(); i++) {
+            Location location = mWalk.get(i);
+            if (i % 20 == 10) {
+                // a multipath fix half a kilometer off, in between two good ones
+                assertNull("outlier at " + i, filter.process(Tracks.moved(location, 500, -300)));
+            }
+            assertSame("fix " + i, location, filter.process(location));
+        }
+    }
+
+    @Test
+    public void givesUpAfterThreeConsecutiveRejections() {
+        LocationFilter filter = filter(false, 10);
+        for (int i = 0; i < 60; i++) {
+            filter.process(mWalk.get(i));
+        }
+        // the walk goes on two kilometers away, e.g. after a tunnel or a ride the provider missed
+        for (int i = 60; i < 63; i++) {
+            assertNull("fix " + i, filter.process(Tracks.moved(mWalk.get(i), 2000, 0)));
+        }
+        for (int i = 63; i < mWalk.size(); i++) {
+            Location moved = Tracks.moved(mWalk.get(i), 2000, 0);
+            assertSame("fix " + i, moved, filter.process(moved));
+        }
+    }
+
+    @Test
+    public void smoothingConvergesOnAStationaryDevice() {
+        // noisy enough for some fixes to look like jumps, which are not what this is about
+        LocationFilter filter = filter(true, Float.POSITIVE_INFINITY);
+        Random random = new Random(7);
+        Location truth = mWalk.get(0);
+        double rawError = 0;
+        double smoothedError = 0;
+        float accuracy = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < 120; i++) {
+            Location raw = Tracks.moved(truth, random.nextGaussian() * 8, random.nextGaussian() * 8);
+            raw.setTime(truth.getTime() + i * 1000L);
+            raw.setAccuracy(8);
+            Location smoothed = filter.process(raw);
+            assertNotNull(smoothed);
+            if (i >= 60) {
+                rawError += truth.distanceTo(raw);
+                smoothedError += truth.distanceTo(smoothed);
+                assertTrue("accuracy should not grow once converged", smoothed.getAccuracy() <= accuracy + 0.01f);
+                accuracy = smoothed.getAccuracy();
+            }
+        }
+        assertTrue("smoothed error " + smoothedError / 60 + " m, raw error " + rawError / 60 + " m",
+                smoothedError < rawError / 2);
+        assertTrue(accuracy < 8);
+    }
+
+    @Test
+    public void smoothingFollowsTheWalk() {
+        LocationFilter filter = filter(true, 10);
+        double error = 0;
+        for (int i = 0; i < mWalk.size(); i++) {
+            Location raw = mWalk.get(i);
+            Location smoothed = filter.process(raw);
+            assertNotNull(smoothed);
+            if (i >= 30) {
+                error += raw.distanceTo(smoothed);
+            }
+        }
+        // a constant-velocity model keeps up with a steady walk instead of lagging behind it
+        assertEquals(0, error / (mWalk.size() - 30), 6);
+    }
+
+    private static LocationFilter filter(boolean smoothing, float maxSpeed) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putInt("interval", 1000);
+        map.putInt("fastestInterval", 0);
+        map.putDouble("distanceFilter", 0);
+        map.putDouble("maxSpeed", maxSpeed);
+        map.putBoolean("smoothing", smoothing);
+        return new LocationFilter(BaseLocationManager.LocationOptions.fromReactMap(map));
+    }
+}
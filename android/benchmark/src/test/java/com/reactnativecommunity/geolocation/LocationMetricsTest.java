@@ -0,0 +1,91 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+/**
+ * Every location manager records into metrics of its own, which the module sums up.
+ */
+public class LocationMetricsTest {
+    @Test
+    public void managersKeepTheirOwnMetrics() throws Exception {
+        FakeLocationContext firstContext = new FakeLocationContext();
+        FakeLocationContext secondContext = new FakeLocationContext();
+        AndroidLocationManager first = new AndroidLocationManager(firstContext);
+        AndroidLocationManager second = new AndroidLocationManager(secondContext);
+        first.getMetrics().setEnabled(true);
+        second.getMetrics().setEnabled(true);
+
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putDouble("distanceFilter", 0);
+        first.startObserving(1, options);
+        second.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+
+        firstContext.locationManager.deliver(fix(-60000));
+        FakeLocationContext.drainLocationThread();
+        firstContext.locationManager.deliver(fix(-40000));
+        secondContext.locationManager.deliver(fix(-20000));
+        FakeLocationContext.drainLocationThread();
+        second.emitError(PositionError.TIMEOUT, "timeout");
+
+        JavaOnlyMap firstMap = toMap(first.getMetrics());
+        assertEquals(2.0, firstMap.getDouble("fixesReceived"), 0);
+        assertEquals(2.0, firstMap.getDouble("fixesEmitted"), 0);
+        assertEquals(2.0, firstMap.getMap("locationToMapUs").getDouble("count"), 0);
+        assertEquals(0.0, firstMap.getDouble("errors"), 0);
+        JavaOnlyMap secondMap = toMap(second.getMetrics());
+        assertEquals(1.0, secondMap.getDouble("fixesEmitted"), 0);
+        assertEquals(1.0, secondMap.getDouble("errors"), 0);
+
+        LocationMetrics total = new LocationMetrics();
+        first.getMetrics().addTo(total);
+        second.getMetrics().addTo(total);
+        JavaOnlyMap totalMap = toMap(total);
+        assertEquals(3.0, totalMap.getDouble("fixesReceived"), 0);
+        assertEquals(3.0, totalMap.getDouble("fixesEmitted"), 0);
+        assertEquals(1.0, totalMap.getDouble("errors"), 0);
+        assertEquals(3.0, totalMap.getMap("locationToMapUs").getDouble("count"), 0);
+
+        first.stopObserving(1);
+        second.stopObserving(1);
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() throws Exception {
+        FakeLocationContext context = new FakeLocationContext();
+        AndroidLocationManager manager = new AndroidLocationManager(context);
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putDouble("distanceFilter", 0);
+        manager.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+
+        context.locationManager.deliver(fix(-60000));
+        FakeLocationContext.drainLocationThread();
+
+        assertEquals(1, context.events("geolocationDidChange").size());
+        manager.emitError(PositionError.TIMEOUT, "timeout");
+        JavaOnlyMap map = toMap(manager.getMetrics());
+        assertEquals(0.0, map.getDouble("fixesReceived"), 0);
+        assertEquals(0.0, map.getDouble("fixesEmitted"), 0);
+        assertEquals(0.0, map.getDouble("errors"), 0);
+        manager.stopObserving(1);
+    }
+
+    private static JavaOnlyMap toMap(LocationMetrics metrics) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        metrics.putInto(map);
+        return map;
+    }
+
+    private static Location fix(long offset) {
+        return Tracks.fix(System.currentTimeMillis() + offset, 52.2297, 21.0122, 5);
+    }
+}
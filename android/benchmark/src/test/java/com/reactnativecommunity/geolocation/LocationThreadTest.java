@@ -0,0 +1,133 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Calls come in on the test thread, standing in for the main and native modules threads, while
+ * the fake {@link LocationManager} delivers fixes on the looper they were registered with.
+ */
+public class LocationThreadTest {
+    private FakeLocationContext mContext;
+    private AndroidLocationManager mManager;
+    private Thread mLocationThread;
+
+    @Before
+    public void setUp() {
+        mContext = new FakeLocationContext();
+        mManager = new AndroidLocationManager(mContext);
+        mLocationThread = LocationThread.getLooper().getThread();
+    }
+
+    @Test
+    public void locationWorkRunsOnTheLocationThread() throws Exception {
+        JavaOnlyMap immediate = new JavaOnlyMap();
+        immediate.putBoolean("enableHighAccuracy", true);
+        immediate.putDouble("distanceFilter", 0);
+        mManager.startObserving(1, immediate);
+        JavaOnlyMap batched = new JavaOnlyMap();
+        batched.putBoolean("enableHighAccuracy", true);
+        batched.putDouble("distanceFilter", 0);
+        batched.putDouble("maxBatchDelayMs", 20);
+        mManager.startObserving(2, batched);
+        FakeLocationContext.drainLocationThread();
+
+        for (FakeLocationContext.Registration registration : mContext.locationManager.active()) {
+            assertSame(LocationThread.getLooper(), registration.looper);
+        }
+        mContext.locationManager.deliver(fix(System.currentTimeMillis(), 0));
+        Thread.sleep(50);
+        FakeLocationContext.drainLocationThread();
+
+        assertEquals(1, mContext.events("geolocationDidChange").size());
+        assertEquals(1, mContext.events("geolocationBatchDidChange").size());
+        for (FakeLocationContext.Event event : mContext.events) {
+            assertSame(event.name, mLocationThread, event.thread);
+        }
+
+        final AtomicReference<Thread> timedOutOn = new AtomicReference<>();
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        Callback error = args -> {
+            timedOutOn.set(Thread.currentThread());
+            timedOut.countDown();
+        };
+        JavaOnlyMap single = new JavaOnlyMap();
+        single.putDouble("maximumAge", 0);
+        single.putDouble("timeout", 10);
+        mManager.getCurrentLocationData(single, args -> {
+        }, error);
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertSame(mLocationThread, timedOutOn.get());
+
+        mManager.stopObserving();
+    }
+
+    /**
+     * Fixes make an adaptive watch switch between its moving and stationary requests on the
+     * location thread, while the watch is started and stopped over and over on the test thread.
+     * Once it is stopped, no registration may be left behind.
+     */
+    @Test
+    public void stoppingAWatchLeavesNoRegistrationBehind() throws Exception {
+        JavaOnlyMap adaptive = new JavaOnlyMap();
+        adaptive.putBoolean("enableHighAccuracy", true);
+        adaptive.putInt("interval", 1000);
+        adaptive.putInt("stationaryInterval", 60000);
+        adaptive.putDouble("distanceFilter", 0);
+
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread feeder = new Thread(() -> {
+            long start = 1700000000000L;
+            long time = start;
+            while (!done.get()) {
+                // fixes end up in the process-wide last location cache, where fixes from the
+                // future would answer every later request
+                if (time > System.currentTimeMillis() - 60 * 60 * 1000) {
+                    time = start;
+                }
+                // two fixes two minutes apart in one place make the device stationary, the
+                // next one a hundred meters away makes it move again
+                mContext.locationManager.deliver(fix(time, 0));
+                mContext.locationManager.deliver(fix(time + 2 * 60 * 1000, 0));
+                mContext.locationManager.deliver(fix(time + 2 * 60 * 1000 + 1000, 100));
+                time += 3 * 60 * 1000;
+                Thread.yield();
+            }
+        });
+        feeder.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                mManager.startObserving(1, adaptive);
+                Thread.sleep(0, 200000);
+                mManager.stopObserving(1);
+                FakeLocationContext.drainLocationThread();
+                assertTrue("registration left behind after " + i + " watches",
+                        mContext.locationManager.active().isEmpty());
+            }
+        } finally {
+            done.set(true);
+            feeder.join();
+        }
+        assertFalse(mContext.events("geolocationDidChange").isEmpty());
+    }
+
+    private static Location fix(long time, double northMeters) {
+        return Tracks.moved(Tracks.fix(time, 52.2297, 21.0122, 5), northMeters, 0);
+    }
+}
@@ -0,0 +1,147 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Feeds a simulated device that stands still, walks off and stands still again through the
+ * movement detector, and through an adaptive watch that samples less often while stationary.
+ */
+public class MovementDetectorTest {
+    private static final long START = 1700000000000L;
+    private static final int INTERVAL = 1000;
+    private static final int STATIONARY_INTERVAL = 60000;
+
+    private FakeLocationContext mContext;
+    private AndroidLocationManager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = new FakeLocationContext();
+        mManager = new AndroidLocationManager(mContext);
+    }
+
+    @Test
+    public void becomesStationaryOnlyAfterTwoMinutesInOnePlace() {
+        MovementDetector detector = new MovementDetector();
+        assertFalse(detector.update(fix(0, 0)));
+        // jitter within the stationary radius for just under two minutes
+        for (int second = 10; second < 120; second += 10) {
+            assertFalse("at " + second + " s", detector.update(fix(second, second % 20 == 0 ? 20 : -20)));
+            assertFalse(detector.isStationary());
+        }
+        assertTrue(detector.update(fix(120, 0)));
+        assertTrue(detector.isStationary());
+
+        // staying put changes nothing, leaving the radius makes it move again
+        assertFalse(detector.update(fix(130, 25)));
+        assertTrue(detector.isStationary());
+        assertTrue(detector.update(fix(140, 100)));
+        assertFalse(detector.isStationary());
+    }
+
+    @Test
+    public void reportedSpeedCountsAsMovingWithinTheRadius() {
+        MovementDetector detector = new MovementDetector();
+        detector.update(fix(0, 0));
+        assertTrue(detector.update(fix(120, 0)));
+
+        Location walking = fix(130, 5);
+        walking.setSpeed(1.4f);
+        assertTrue(detector.update(walking));
+        assertFalse(detector.isStationary());
+
+        // the walking fix is the new anchor, so two more minutes are needed to stand still again
+        assertFalse(detector.update(fix(240, 5)));
+        assertTrue(detector.update(fix(250, 5)));
+    }
+
+    @Test
+    public void adaptiveWatchSwitchesIntervalWithTheMovementState() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putInt("interval", INTERVAL);
+        options.putInt("stationaryInterval", STATIONARY_INTERVAL);
+        options.putDouble("distanceFilter", 0);
+        mManager.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+        assertActive(LocationManager.GPS_PROVIDER, INTERVAL);
+
+        // standing still: the request is kept for two minutes, then relaxed once
+        for (int second = 0; second < 120; second += 10) {
+            deliver(fix(second, second % 20 == 0 ? 10 : -10));
+            assertActive(LocationManager.GPS_PROVIDER, INTERVAL);
+        }
+        deliver(fix(120, 0));
+        assertActive(LocationManager.NETWORK_PROVIDER, STATIONARY_INTERVAL);
+        int registrations = mContext.locationManager.requested.size();
+        deliver(fix(180, 15));
+        assertEquals(registrations, mContext.locationManager.requested.size());
+
+        // walking off restores the full rate request right away
+        deliver(fix(240, 100));
+        assertActive(LocationManager.GPS_PROVIDER, INTERVAL);
+
+        // and standing still again relaxes it again
+        for (int second = 250; second < 360; second += 10) {
+            deliver(fix(second, 100));
+            assertActive(LocationManager.GPS_PROVIDER, INTERVAL);
+        }
+        deliver(fix(360, 100));
+        assertActive(LocationManager.NETWORK_PROVIDER, STATIONARY_INTERVAL);
+
+        mManager.stopObserving(1);
+        FakeLocationContext.drainLocationThread();
+        assertTrue(mContext.locationManager.active().isEmpty());
+    }
+
+    @Test
+    public void watchWithoutStationaryIntervalKeepsItsRequest() throws Exception {
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putInt("interval", INTERVAL);
+        options.putDouble("distanceFilter", 0);
+        mManager.startObserving(1, options);
+        FakeLocationContext.drainLocationThread();
+
+        for (int second = 0; second <= 300; second += 10) {
+            deliver(fix(second, 0));
+        }
+        assertEquals(1, mContext.locationManager.requested.size());
+        assertActive(LocationManager.GPS_PROVIDER, INTERVAL);
+        mManager.stopObserving(1);
+    }
+
+    /**
+     * Delivers the fix through the provider the watch is currently registered with.
+     */
+    private void deliver(Location location) throws InterruptedException {
+        List<FakeLocationContext.Registration> active = mContext.locationManager.active();
+        assertEquals(1, active.size());
+        location.setProvider(active.get(0).provider);
+        mContext.locationManager.deliver(location);
+        FakeLocationContext.drainLocationThread();
+    }
+
+    private void assertActive(String provider, long minTimeMs) {
+        List<FakeLocationContext.Registration> active = mContext.locationManager.active();
+        assertEquals(1, active.size());
+        assertEquals(provider, active.get(0).provider);
+        assertEquals(minTimeMs, active.get(0).minTimeMs);
+    }
+
+    private static Location fix(int second, double northMeters) {
+        return Tracks.moved(Tracks.fix(START + second * 1000L, 52.2297, 21.0122, 5), northMeters, 0);
+    }
+}
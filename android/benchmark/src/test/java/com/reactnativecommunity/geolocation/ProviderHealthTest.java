@@ -0,0 +1,147 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets providers time out, answer slowly and recover, both against the record itself and through
+ * the single requests of {@link AndroidLocationManager}, which pick their provider by it.
+ */
+public class ProviderHealthTest {
+    private static final String GPS = LocationManager.GPS_PROVIDER;
+    private static final long NOW = 1700000000000L;
+    private static final long TIMEOUT = 10000;
+
+    private final ProviderHealth mHealth = ProviderHealth.getInstance();
+
+    @Before
+    public void setUp() {
+        mHealth.clear();
+    }
+
+    @After
+    public void tearDown() {
+        mHealth.clear();
+    }
+
+    @Test
+    public void providerIsTrustedOnlyAfterThreeAttempts() {
+        assertTrue(mHealth.isHealthy(GPS, TIMEOUT, NOW));
+        mHealth.recordTimeout(GPS, NOW);
+        mHealth.recordTimeout(GPS, NOW);
+        assertTrue(mHealth.isHealthy(GPS, TIMEOUT, NOW));
+        mHealth.recordTimeout(GPS, NOW);
+        assertFalse(mHealth.isHealthy(GPS, TIMEOUT, NOW));
+        assertTrue(mHealth.isHealthy(LocationManager.NETWORK_PROVIDER, TIMEOUT, NOW));
+    }
+
+    @Test
+    public void slowFirstFixesAreUnhealthyForShorterTimeouts() {
+        for (int i = 0; i < 3; i++) {
+            mHealth.recordFix(GPS, 20000, 5, NOW);
+        }
+        assertFalse(mHealth.isHealthy(GPS, 10000, NOW));
+        assertTrue(mHealth.isHealthy(GPS, 30000, NOW));
+    }
+
+    @Test
+    public void fixesBringATimingOutProviderBack() {
+        for (int i = 0; i < 3; i++) {
+            mHealth.recordTimeout(GPS, NOW);
+        }
+        assertFalse(mHealth.isHealthy(GPS, TIMEOUT, NOW));
+        mHealth.recordFix(GPS, 1000, 5, NOW);
+        assertTrue(mHealth.isHealthy(GPS, TIMEOUT, NOW));
+    }
+
+    @Test
+    public void staleRecordIsGivenAnotherChance() {
+        for (int i = 0; i < 3; i++) {
+            mHealth.recordTimeout(GPS, NOW);
+        }
+        assertFalse(mHealth.isHealthy(GPS, TIMEOUT, NOW + 5 * 60 * 1000));
+        assertTrue(mHealth.isHealthy(GPS, TIMEOUT, NOW + 5 * 60 * 1000 + 1));
+    }
+
+    @Test
+    public void singleRequestsSwitchAwayFromATimingOutProviderAndBack() throws Exception {
+        FakeLocationContext context = new FakeLocationContext();
+        AndroidLocationManager manager = new AndroidLocationManager(context);
+        manager.getMetrics().setEnabled(true);
+        List<FakeLocationContext.Registration> requested = context.locationManager.requested;
+
+        // GPS times out three times in a row
+        for (int i = 0; i < 3; i++) {
+            request(manager, false, 20, false);
+            assertEquals(GPS, requested.get(requested.size() - 1).provider);
+        }
+
+        // so the next high accuracy request goes to the network provider, which answers
+        CountDownLatch answered = request(manager, false, 5000, true);
+        assertEquals(LocationManager.NETWORK_PROVIDER, requested.get(requested.size() - 1).provider);
+        context.locationManager.deliver(fix(LocationManager.NETWORK_PROVIDER));
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, providerSwitches(manager), 0);
+
+        // a racing request gets a GPS fix, which brings GPS back
+        answered = request(manager, true, 5000, true);
+        context.locationManager.deliver(fix(GPS));
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        FakeLocationContext.drainLocationThread();
+
+        request(manager, false, 20, false);
+        assertEquals(GPS, requested.get(requested.size() - 1).provider);
+        assertEquals(1.0, providerSwitches(manager), 0);
+    }
+
+    /**
+     * Makes a high accuracy single request, and waits for it to time out unless {@code answer}.
+     *
+     * @return counted down once the request is answered with a fix
+     */
+    private static CountDownLatch request(AndroidLocationManager manager, boolean race, long timeout, boolean answer)
+            throws InterruptedException {
+        final CountDownLatch answered = new CountDownLatch(1);
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putBoolean("enableHighAccuracy", true);
+        options.putBoolean("race", race);
+        options.putDouble("maximumAge", 0);
+        options.putDouble("timeout", timeout);
+        Callback success = args -> answered.countDown();
+        Callback error = args -> timedOut.countDown();
+        manager.getCurrentLocationData(options, success, error);
+        if (!answer) {
+            assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+            FakeLocationContext.drainLocationThread();
+        }
+        return answered;
+    }
+
+    private static double providerSwitches(AndroidLocationManager manager) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        manager.getMetrics().putInto(map);
+        return map.getDouble("providerSwitches");
+    }
+
+    private static Location fix(String provider) {
+        Location location = Tracks.fix(System.currentTimeMillis(), 52.2297, 21.0122, 5);
+        location.setProvider(provider);
+        return location;
+    }
+}
@@ -0,0 +1,159 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Races fixes, provider errors, timeouts and soft deadlines, which fire on the location thread,
+ * against calls joining the same registrations from several threads.
+ */
+public class SingleLocationRequestsTest {
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 2000;
+    private static final String[] KEYS = {"gps:100", "network:104", "race:100"};
+
+    private final SingleLocationRequests mRequests = new SingleLocationRequests(new LocationMetrics());
+    private final ConcurrentLinkedQueue<AtomicInteger> mCallbacks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<AtomicInteger> mCancellations = new ConcurrentLinkedQueue<>();
+    /**
+     * Recently registered groups, for the threads firing fixes and errors to pick from.
+     */
+    private final AtomicReferenceArray<SingleLocationRequests.Group> mGroups = new AtomicReferenceArray<>(16);
+    private final AtomicInteger mGroupCount = new AtomicInteger();
+    private final AtomicLong mTime = new AtomicLong(1700000000000L);
+    private final CountDownLatch mAnswered = new CountDownLatch(THREADS * REQUESTS_PER_THREAD);
+
+    @Test
+    public void everyRequestIsAnsweredOnceAndEveryRegistrationCancelledOnce() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(this::run);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("every request should be answered", mAnswered.await(10, TimeUnit.SECONDS));
+        // let anything still scheduled on the location thread, such as stale timeouts, run
+        Thread.sleep(50);
+
+        assertEquals(THREADS * REQUESTS_PER_THREAD, mCallbacks.size());
+        for (AtomicInteger callbacks : mCallbacks) {
+            assertEquals("callbacks of one request", 1, callbacks.get());
+        }
+        assertTrue(mCancellations.size() > 0);
+        for (AtomicInteger cancellations : mCancellations) {
+            assertEquals("cancellations of one registration", 1, cancellations.get());
+        }
+    }
+
+    @Test
+    public void failedRegistrationFailsTheCallAndIsNotJoined() {
+        BaseLocationManager.LocationOptions options = BaseLocationManager.LocationOptions.fromReactMap(new JavaOnlyMap());
+        final List<Object[]> errors = new ArrayList<>();
+        Callback success = args -> {
+            throw new AssertionError("no fix was delivered");
+        };
+        mRequests.request("gps:100", options, null, group -> {
+            throw new IllegalArgumentException("provider doesn't exist: gps");
+        }, success, errors::add);
+
+        assertEquals(1, errors.size());
+        ReadableMap error = (ReadableMap) errors.get(0)[0];
+        assertEquals(PositionError.POSITION_UNAVAILABLE, error.getInt("code"));
+
+        // the next compatible call gets a registration of its own
+        final AtomicInteger registrations = new AtomicInteger();
+        mRequests.request("gps:100", options, null, group -> {
+            registrations.incrementAndGet();
+            return () -> {
+            };
+        }, success, errors::add);
+        assertEquals(1, registrations.get());
+        assertEquals(1, errors.size());
+    }
+
+    private void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+            request(random);
+            int fixes = random.nextInt(3);
+            for (int j = 0; j < fixes; j++) {
+                SingleLocationRequests.Group group = randomGroup(random);
+                if (group != null) {
+                    group.onLocation(fix(random));
+                }
+            }
+            if (random.nextInt(50) == 0) {
+                SingleLocationRequests.Group group = randomGroup(random);
+                if (group != null) {
+                    group.onError(PositionError.POSITION_UNAVAILABLE, "Provider failed");
+                }
+            }
+        }
+    }
+
+    private void request(ThreadLocalRandom random) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putDouble("timeout", random.nextInt(1, 5));
+        if (random.nextBoolean()) {
+            map.putDouble("softDeadline", random.nextInt(0, 3));
+        }
+        if (random.nextBoolean()) {
+            map.putDouble("desiredAccuracy", 20);
+        }
+        final AtomicInteger callbacks = new AtomicInteger();
+        mCallbacks.add(callbacks);
+        Callback callback = args -> {
+            if (callbacks.incrementAndGet() == 1) {
+                mAnswered.countDown();
+            }
+        };
+        mRequests.request(
+                KEYS[random.nextInt(KEYS.length)],
+                BaseLocationManager.LocationOptions.fromReactMap(map),
+                null,
+                this::register,
+                callback,
+                callback);
+    }
+
+    private SingleLocationRequests.Registration register(SingleLocationRequests.Group group) {
+        mGroups.set(mGroupCount.getAndIncrement() & (mGroups.length() - 1), group);
+        final AtomicInteger cancellations = new AtomicInteger();
+        mCancellations.add(cancellations);
+        return cancellations::incrementAndGet;
+    }
+
+    private SingleLocationRequests.Group randomGroup(ThreadLocalRandom random) {
+        return mGroups.get(random.nextInt(mGroups.length()));
+    }
+
+    private Location fix(ThreadLocalRandom random) {
+        Location location = new Location("gps");
+        location.setTime(mTime.addAndGet(random.nextInt(-500, 1000)));
+        location.setLatitude(52.2297);
+        location.setLongitude(21.0122);
+        location.setAccuracy(random.nextInt(5, 60));
+        return location;
+    }
+}
@@ -0,0 +1,99 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the geohash and tile bits against published and independently computed values.
+ */
+public class SpatialEncoderTest {
+    @Test
+    public void geohashMatchesKnownValues() {
+        // the examples of the geohash article on Wikipedia
+        assertEquals("u", geohash(57.64911, 10.40744, 1));
+        assertEquals("u4pru", geohash(57.64911, 10.40744, 5));
+        assertEquals("u4pruydqqvj", geohash(57.64911, 10.40744, 11));
+        assertEquals("ezs42", geohash(42.605, -5.603, 5));
+    }
+
+    @Test
+    public void geohashCoversTheWholeRange() {
+        assertEquals("000000000000", geohash(-90, -180, SpatialEncoder.MAX_GEOHASH_PRECISION));
+        assertEquals("zzzzzzzzzzzz", geohash(90, 180, SpatialEncoder.MAX_GEOHASH_PRECISION));
+        // either side of the antimeridian ends up at the opposite ends of the longitude range
+        assertEquals("x", geohash(10, 179.999, 1));
+        assertEquals("8", geohash(10, -179.999, 1));
+    }
+
+    @Test
+    public void tileAtZoomOneIsTheQuadrant() {
+        assertEquals("0", quadkey(45, -90, 1));
+        assertEquals("1", quadkey(45, 90, 1));
+        assertEquals("2", quadkey(-45, -90, 1));
+        assertEquals("3", quadkey(-45, 90, 1));
+    }
+
+    @Test
+    public void tileMatchesKnownValues() {
+        // the quadkey example of the Bing Maps tile system docs: tile x 3, y 5 at zoom 3
+        assertEquals("213", quadkey(tileCenterLatitude(5, 3), tileCenterLongitude(3, 3), 3));
+
+        // x and y as computed by the usual slippy map formula
+        assertTile(146372, 86317, 52.2297, 21.0122, 18);
+        assertTile(241183, 157300, -33.8568, 151.2153, 18);
+        assertTile(77154, 98583, 40.6892, -74.0445, 18);
+        assertEquals("120213101311202302", quadkey(52.2297, 21.0122, 18));
+    }
+
+    @Test
+    public void tileIsClampedToTheMercatorSquare() {
+        long last = (1L << 18) - 1;
+        // beyond +-85.0511 degrees the map ends, so the first and last rows take everything
+        assertTile(146372, 0, 85.0511, 21.0122, 18);
+        assertTile(146372, 0, 89.9, 21.0122, 18);
+        assertTile(146372, 0, 90, 21.0122, 18);
+        assertTile(146372, last, -85.0511, 21.0122, 18);
+        assertTile(146372, last, -90, 21.0122, 18);
+
+        // the antimeridian is the last column going east and the first going west
+        assertTile(last, 86317, 52.2297, 180, 18);
+        assertTile(0, 86317, 52.2297, -180, 18);
+        assertEquals("1", quadkey(10, 180, 1));
+        assertEquals("0", quadkey(10, -180, 1));
+    }
+
+    @Test
+    public void disabledEncodingsHaveNoCell() {
+        assertEquals(SpatialEncoder.NO_CELL, SpatialEncoder.geohash(52.2297, 21.0122, 0));
+        assertEquals(SpatialEncoder.NO_CELL, SpatialEncoder.tile(52.2297, 21.0122, 0));
+    }
+
+    private static void assertTile(long x, long y, double latitude, double longitude, int zoom) {
+        long quadkey = SpatialEncoder.tile(latitude, longitude, zoom);
+        long tileX = 0;
+        long tileY = 0;
+        for (int i = zoom - 1; i >= 0; i--) {
+            tileX = (tileX << 1) | ((quadkey >> (2 * i)) & 1);
+            tileY = (tileY << 1) | ((quadkey >> (2 * i + 1)) & 1);
+        }
+        assertEquals("x of " + latitude + "," + longitude, x, tileX);
+        assertEquals("y of " + latitude + "," + longitude, y, tileY);
+    }
+
+    private static String geohash(double latitude, double longitude, int precision) {
+        return SpatialEncoder.geohashToString(SpatialEncoder.geohash(latitude, longitude, precision), precision);
+    }
+
+    private static String quadkey(double latitude, double longitude, int zoom) {
+        return SpatialEncoder.quadkeyToString(SpatialEncoder.tile(latitude, longitude, zoom), zoom);
+    }
+
+    private static double tileCenterLongitude(int x, int zoom) {
+        return (x + 0.5) / (1 << zoom) * 360 - 180;
+    }
+
+    private static double tileCenterLatitude(int y, int zoom) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * (y + 0.5) / (1 << zoom)))));
+    }
+}
@@ -0,0 +1,96 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Base64;
+
+/**
+ * Exports a recorded track of 100k fixes the way {@code exportTrack} hands it to JS, as one
+ * base64 encoded buffer of little-endian columns. How long that takes is measured by
+ * {@code TrackExportBenchmark}.
+ */
+public class TrackExportTest {
+    private static final int FIXES = 100000;
+    private static final long START = 1700000000000L;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private TrackRecorder mRecorder;
+
+    @Before
+    public void setUp() throws Exception {
+        mRecorder = new TrackRecorder(mFolder.newFolder("track"));
+        mRecorder.open();
+        for (int i = 0; i < FIXES; i++) {
+            mRecorder.append(Tracks.fix(START + i * 1000L, 52.2297 + i * 1e-6, 21.0122, 5));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mRecorder.close();
+    }
+
+    @Test
+    public void exportsEveryFixColumnByColumn() throws Exception {
+        WritableMap export = mRecorder.export(0, Double.MAX_VALUE, 0, FIXES);
+        assertEquals(FIXES, export.getInt("count"));
+
+        DoubleBuffer values = decode(export);
+        // latitude, longitude, altitude, accuracy, heading, speed and timestamp
+        assertEquals(7 * FIXES, values.remaining());
+        for (int i = 0; i < FIXES; i += 9999) {
+            assertEquals(52.2297 + i * 1e-6, values.get(i), 1e-9);
+            assertEquals(21.0122, values.get(FIXES + i), 1e-9);
+            assertEquals(5, values.get(3 * FIXES + i), 0);
+            assertEquals(START + i * 1000L, values.get(6 * FIXES + i), 0);
+        }
+    }
+
+    @Test
+    public void recordingGoesOnDuringAnExport() throws Exception {
+        final WritableMap[] export = new WritableMap[1];
+        Thread exporter = new Thread(() -> {
+            try {
+                export[0] = mRecorder.export(0, Double.MAX_VALUE, 0, Integer.MAX_VALUE);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        exporter.start();
+        for (int i = FIXES; i < FIXES + 1000; i++) {
+            mRecorder.append(Tracks.fix(START + i * 1000L, 52.2297, 21.0122, 5));
+        }
+        exporter.join();
+
+        // the export holds every fix recorded when it started, and maybe some that came after
+        int count = export[0].getInt("count");
+        assertTrue(count >= FIXES && count <= FIXES + 1000);
+        DoubleBuffer values = decode(export[0]);
+        assertEquals(7 * count, values.remaining());
+        for (int i = 0; i < count; i++) {
+            assertEquals(START + i * 1000L, values.get(6 * count + i), 0);
+        }
+        assertEquals(FIXES + 1000, mRecorder.readPacked().length / LocationSerializer.FIELD_COUNT);
+    }
+
+    private static DoubleBuffer decode(WritableMap export) {
+        return ByteBuffer.wrap(Base64.getDecoder().decode(export.getString("data")))
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asDoubleBuffer();
+    }
+}
@@ -0,0 +1,177 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Locale;
+
+/**
+ * Tears and corrupts the end of the track log as a crash or power loss would, and fills it past
+ * segment rotation and eviction.
+ */
+public class TrackRecorderTest {
+    private static final long START = 1700000000000L;
+    private static final int RECORD_SIZE = LocationSerializer.FIELD_COUNT * 8 + 8;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        mDirectory = mFolder.newFolder("track");
+    }
+
+    @Test
+    public void tornLastRecordIsCutOffOnOpen() throws Exception {
+        record(0, 10);
+        try (RandomAccessFile file = new RandomAccessFile(segment(0), "rw")) {
+            file.setLength(10L * RECORD_SIZE - 5);
+        }
+
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        assertTimestamps(recorder, 0, 9);
+
+        // appending goes on right after the last good record
+        recorder.append(fix(100));
+        recorder.close();
+        assertEquals(10L * RECORD_SIZE, segment(0).length());
+        assertTimestamps(recorder, 0, 9, 100);
+    }
+
+    @Test
+    public void recordsFailingTheirChecksumAreCutOffUpToTheLastGoodOne() throws Exception {
+        record(0, 10);
+        corrupt(0, 8);
+        corrupt(0, 9);
+
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        recorder.close();
+        assertEquals(8L * RECORD_SIZE, segment(0).length());
+        assertTimestamps(recorder, 0, 8);
+    }
+
+    @Test
+    public void corruptRecordInTheMiddleIsSkipped() throws Exception {
+        record(0, 10);
+        corrupt(0, 4);
+
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        recorder.close();
+        assertEquals(10L * RECORD_SIZE, segment(0).length());
+        double[] expected = {0, 1, 2, 3, 5, 6, 7, 8, 9};
+        assertArrayEquals(expected, timestamps(recorder), 0);
+    }
+
+    @Test
+    public void fullSegmentRotatesToTheNextOne() throws Exception {
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        for (int i = 0; i < TrackRecorder.SEGMENT_RECORDS; i++) {
+            recorder.append(fix(i));
+        }
+        assertFalse(segment(1).exists());
+
+        recorder.append(fix(TrackRecorder.SEGMENT_RECORDS));
+        recorder.close();
+        assertEquals((long) TrackRecorder.SEGMENT_RECORDS * RECORD_SIZE, segment(0).length());
+        assertEquals(RECORD_SIZE, segment(1).length());
+
+        double[] timestamps = timestamps(recorder);
+        assertEquals(TrackRecorder.SEGMENT_RECORDS + 1, timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            assertEquals(i, timestamps[i], 0);
+        }
+        // cursors go on across the rotation
+        assertEquals(1, recorder.read(0, Double.MAX_VALUE, TrackRecorder.SEGMENT_RECORDS, 10)
+                .getArray("positions").size());
+    }
+
+    @Test
+    public void oldestSegmentIsDeletedPastTheLimit() throws Exception {
+        // empty segments stand in for full ones, only the newest is filled up
+        for (int i = 0; i < TrackRecorder.MAX_SEGMENTS; i++) {
+            assertTrue(segment(i).createNewFile());
+        }
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        for (int i = 0; i <= TrackRecorder.SEGMENT_RECORDS; i++) {
+            recorder.append(fix(i));
+        }
+        recorder.close();
+
+        assertFalse(segment(0).exists());
+        for (int i = 1; i <= TrackRecorder.MAX_SEGMENTS; i++) {
+            assertTrue("segment " + i, segment(i).exists());
+        }
+        assertEquals(TrackRecorder.MAX_SEGMENTS, mDirectory.list().length);
+        assertEquals(TrackRecorder.SEGMENT_RECORDS + 1, timestamps(recorder).length);
+    }
+
+    private void record(int first, int count) throws IOException {
+        TrackRecorder recorder = new TrackRecorder(mDirectory);
+        recorder.open();
+        for (int i = first; i < first + count; i++) {
+            recorder.append(fix(i));
+        }
+        recorder.close();
+    }
+
+    /**
+     * Flips a bit of the record's fields, so that it fails its checksum.
+     */
+    private void corrupt(long segment, int record) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment(segment), "rw")) {
+            long position = (long) record * RECORD_SIZE + LocationSerializer.LATITUDE * 8;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 1);
+        }
+    }
+
+    private File segment(long segment) {
+        return new File(mDirectory, String.format(Locale.US, "%010d.trk", segment));
+    }
+
+    private static void assertTimestamps(TrackRecorder recorder, int first, int count, double... more) throws IOException {
+        double[] expected = new double[count + more.length];
+        for (int i = 0; i < count; i++) {
+            expected[i] = first + i;
+        }
+        System.arraycopy(more, 0, expected, count, more.length);
+        assertArrayEquals(expected, timestamps(recorder), 0);
+    }
+
+    /**
+     * Seconds since {@link #START} of every record read back, in order.
+     */
+    private static double[] timestamps(TrackRecorder recorder) throws IOException {
+        double[] packed = recorder.readPacked();
+        double[] timestamps = new double[packed.length / LocationSerializer.FIELD_COUNT];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = (packed[i * LocationSerializer.FIELD_COUNT + LocationSerializer.TIMESTAMP] - START) / 1000;
+        }
+        return timestamps;
+    }
+
+    private static Location fix(int second) {
+        return Tracks.fix(START + second * 1000L, 52.2297, 21.0122, 5);
+    }
+}
@@ -0,0 +1,62 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks replayed by the tests, from the csv files in src/test/resources.
+ */
+final class Tracks {
+    private static final double METERS_PER_DEGREE_LATITUDE = Math.toRadians(6371008.8);
+
+    private Tracks() {
+    }
+
+    /**
+     * @param name a file of {@code time,latitude,longitude,accuracy} lines, where lines starting
+     *             with {@code #} are comments
+     */
+    static List<Location> load(String name) throws IOException {
+        List<Location> track = new ArrayList<>();
+        try (InputStream stream = Tracks.class.getResourceAsStream("/" + name);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                track.add(fix(Long.parseLong(fields[0]), Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2]), Float.parseFloat(fields[3])));
+            }
+        }
+        return track;
+    }
+
+    static Location fix(long time, double latitude, double longitude, float accuracy) {
+        Location location = new Location("gps");
+        location.setTime(time);
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        location.setAccuracy(accuracy);
+        return location;
+    }
+
+    /**
+     * @return a copy of {@code location} moved by the given offsets in meters
+     */
+    static Location moved(Location location, double northMeters, double eastMeters) {
+        Location moved = new Location(location);
+        moved.setLatitude(location.getLatitude() + northMeters / METERS_PER_DEGREE_LATITUDE);
+        moved.setLongitude(location.getLongitude() + eastMeters
+                / (METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(location.getLatitude()))));
+        return moved;
+    }
+}
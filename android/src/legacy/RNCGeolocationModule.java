@@ -1,11 +1,14 @@
 package com.reactnativecommunity.geolocation;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Callback;
 
 public class RNCGeolocationModule extends ReactContextBaseJavaModule {
@@ -23,6 +26,12 @@ public class RNCGeolocationModule extends ReactContextBaseJavaModule {
       return GeolocationModule.NAME;
     }
 
+    @Override
+    public void invalidate() {
+      super.invalidate();
+      mImpl.invalidate();
+    }
+
     @ReactMethod
     public void setConfiguration(ReadableMap config) {
       mImpl.setConfiguration(config);
@@ -46,6 +55,71 @@ public class RNCGeolocationModule extends ReactContextBaseJavaModule {
       mImpl.startObserving(options);
     }
 
+    @ReactMethod
+    public void addWatch(double watchId, ReadableMap options) {
+      mImpl.addWatch((int) watchId, options);
+    }
+
+    @ReactMethod
+    public void removeWatch(double watchId) {
+      mImpl.removeWatch((int) watchId);
+    }
+
+    @ReactMethod
+    public void startRecording(ReadableMap options) {
+      mImpl.startRecording(options);
+    }
+
+    @ReactMethod
+    public void stopRecording() {
+      mImpl.stopRecording();
+    }
+
+    @ReactMethod
+    public void readTrack(ReadableMap query, final Callback success, final Callback error) {
+      mImpl.readTrack(query, success, error);
+    }
+
+    @ReactMethod
+    public void exportTrack(ReadableMap query, final Callback success, final Callback error) {
+      mImpl.exportTrack(query, success, error);
+    }
+
+    @ReactMethod
+    public void addGeofences(ReadableArray fences, ReadableMap options, final Callback error) {
+      mImpl.addGeofences(fences, options, error);
+    }
+
+    @ReactMethod
+    public void removeGeofences(ReadableArray ids) {
+      mImpl.removeGeofences(ids);
+    }
+
+    @ReactMethod
+    public void clearGeofences() {
+      mImpl.clearGeofences();
+    }
+
+    @ReactMethod
+    public void getLocationCacheStats(final Callback success) {
+      mImpl.getLocationCacheStats(success);
+    }
+
+    @ReactMethod
+    public void getMetrics(final Callback success) {
+      mImpl.getMetrics(success);
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public String getAuthorizationStatusSync() {
+      return mImpl.getAuthorizationStatusSync();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public @Nullable WritableMap getLastKnownPositionSync() {
+      return mImpl.getLastKnownPositionSync();
+    }
+
     @ReactMethod
     public void stopObserving() {
       mImpl.stopObserving();
@@ -3,15 +3,14 @@ package com.reactnativecommunity.geolocation;
 import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.location.Location;
-import android.location.LocationListener;
 import android.location.LocationManager;
 import android.location.LocationProvider;
 import android.os.Bundle;
-import android.os.Handler;
 
-import androidx.core.content.ContextCompat;
+import androidx.core.location.LocationListenerCompat;
+import androidx.core.location.LocationManagerCompat;
+import androidx.core.location.LocationRequestCompat;
 
 import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Callback;
@@ -19,20 +18,54 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.common.ReactConstants;
 import com.facebook.react.common.SystemClock;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
 @SuppressLint("MissingPermission")
 public class AndroidLocationManager extends BaseLocationManager {
+    /**
+     * Spacing of the fixes requested while single locations are pending. Successive fixes are
+     * compared with {@link #isBetterLocation}, so they only need to come often enough for the
+     * first good one to arrive well before the timeout.
+     */
+    private static final long SINGLE_UPDATE_INTERVAL_MS = 1000;
+    /**
+     * {@code LocationManager.FUSED_PROVIDER}, only public since API 31 but present on many older
+     * devices.
+     */
+    private static final String FUSED_PROVIDER = "fused";
+    /**
+     * The providers that get fixes by themselves, unlike the passive one.
+     */
+    private static final String[] ACTIVE_PROVIDERS = {
+            LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER, FUSED_PROVIDER
+    };
+
     private @Nullable
     String mWatchedProvider;
+    private @Nullable
+    LocationRequestCompat mWatchedRequest;
+    // set with the watch options on the calling thread, read by the listener on the location thread
+    private volatile long mWatchedFastestInterval = -1;
+    private volatile long mLastWatchedFixTime;
+    private final SingleLocationRequests mSingleRequests = new SingleLocationRequests(getMetrics());
 
-    private final LocationListener mLocationListener = new LocationListener() {
+    private final LocationListenerCompat mLocationListener = new LocationListenerCompat() {
         @Override
         public void onLocationChanged(Location location) {
-            mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                    .emit("geolocationDidChange", locationToMap(location));
+            // Before Android 12 the platform only knows a single minimum time, so fixes may come
+            // in faster than fastestInterval. Drop those before they are routed and serialized.
+            long fastestInterval = mWatchedFastestInterval;
+            if (fastestInterval > 0 && location.getTime() - mLastWatchedFixTime < fastestInterval) {
+                return;
+            }
+            mLastWatchedFixTime = location.getTime();
+            emitLocation(location);
         }
 
         @Override
@@ -46,10 +79,12 @@ public class AndroidLocationManager extends BaseLocationManager {
 
         @Override
         public void onProviderEnabled(String provider) {
+            ProviderStateCache.getInstance().setProviderEnabled(provider, true);
         }
 
         @Override
         public void onProviderDisabled(String provider) {
+            ProviderStateCache.getInstance().setProviderEnabled(provider, false);
         }
     };
 
@@ -63,216 +98,289 @@ public class AndroidLocationManager extends BaseLocationManager {
             Callback error) {
         AndroidLocationManager.LocationOptions locationOptions = AndroidLocationManager.LocationOptions.fromReactMap(options);
 
+        Location cached = LastLocationCache.getInstance()
+                .get(locationOptions.accuracy, locationOptions.maximumAge, SystemClock.currentTimeMillis());
+        if (cached != null) {
+            success.invoke(locationToMap(cached, locationOptions.includeExtras));
+            return;
+        }
+
         try {
             LocationManager locationManager =
                     (LocationManager) mReactContext.getSystemService(Context.LOCATION_SERVICE);
-            String provider = getValidProvider(locationManager, locationOptions.highAccuracy);
-            if (provider == null) {
+            final List<String> providers = getSingleProviders(locationManager, locationOptions);
+            if (providers.isEmpty()) {
                 error.invoke(
                         PositionError.buildError(
                                 PositionError.POSITION_UNAVAILABLE, "No location provider available."));
                 return;
             }
-            Location location = locationManager.getLastKnownLocation(provider);
+            Location location = null;
+            for (String provider : providers) {
+                Location lastKnown = locationManager.getLastKnownLocation(provider);
+                LastLocationCache.getInstance().put(lastKnown);
+                if (lastKnown != null && isBetterLocation(lastKnown, location)) {
+                    location = lastKnown;
+                }
+            }
             if (location != null && (SystemClock.currentTimeMillis() - location.getTime()) < locationOptions.maximumAge) {
-                success.invoke(locationToMap(location));
+                success.invoke(locationToMap(location, locationOptions.includeExtras));
                 return;
             }
 
-            new AndroidLocationManager.SingleUpdateRequest(locationManager, provider, locationOptions.timeout, success, error)
-                    .invoke(location);
+            final boolean race = providers.size() > 1;
+            mSingleRequests.request(
+                    (race ? "race" : providers.get(0)) + ":" + locationOptions.accuracy,
+                    locationOptions,
+                    location,
+                    group -> {
+                        if (!race) {
+                            return requestSingleUpdates(locationManager, providers.get(0), locationOptions.accuracy, group, true);
+                        }
+                        return requestRaceUpdates(locationManager, providers, locationOptions.accuracy, group);
+                    },
+                    success,
+                    error);
         } catch (SecurityException e) {
             throw e;
         }
     }
 
-    public void startObserving(ReadableMap options) {
-        if (LocationManager.GPS_PROVIDER.equals(mWatchedProvider)) {
-            return;
-        }
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
-
+    @Override
+    protected void requestWatchUpdates(LocationOptions options, long providerBatchDelayMs) {
         try {
             LocationManager locationManager =
                     (LocationManager) mReactContext.getSystemService(Context.LOCATION_SERVICE);
-            String provider = getValidProvider(locationManager, locationOptions.highAccuracy);
+            String provider = getValidProvider(locationManager, options.accuracy);
             if (provider == null) {
                 emitError(PositionError.POSITION_UNAVAILABLE, "No location provider available.");
                 return;
             }
-            if (!provider.equals(mWatchedProvider)) {
-                locationManager.removeUpdates(mLocationListener);
-                locationManager.requestLocationUpdates(
-                        provider,
-                        1000,
-                        locationOptions.distanceFilter,
-                        mLocationListener);
+            LocationRequestCompat.Builder builder = new LocationRequestCompat.Builder(options.interval)
+                    .setQuality(toQuality(options.accuracy))
+                    .setMinUpdateDistanceMeters(options.distanceFilter)
+                    .setMaxUpdateDelayMillis(providerBatchDelayMs);
+            if (options.fastestInterval >= 0) {
+                builder.setMinUpdateIntervalMillis(options.fastestInterval);
+            }
+            LocationRequestCompat request = builder.build();
+            mWatchedFastestInterval = options.fastestInterval;
+            if (provider.equals(mWatchedProvider) && request.equals(mWatchedRequest)) {
+                return;
+            }
+            if (mWatchedProvider != null && !provider.equals(mWatchedProvider)) {
+                getMetrics().increment(LocationMetrics.PROVIDER_SWITCHES);
             }
+            LocationManagerCompat.removeUpdates(locationManager, mLocationListener);
+            LocationManagerCompat.requestLocationUpdates(
+                    locationManager,
+                    provider,
+                    request,
+                    mLocationListener,
+                    LocationThread.getLooper());
             mWatchedProvider = provider;
+            mWatchedRequest = request;
         } catch (SecurityException e) {
             throw e;
         }
     }
 
-    public void stopObserving() {
+    @Override
+    protected void removeWatchUpdates() {
         LocationManager locationManager =
                 (LocationManager) mReactContext.getSystemService(Context.LOCATION_SERVICE);
-        locationManager.removeUpdates(mLocationListener);
+        LocationManagerCompat.removeUpdates(locationManager, mLocationListener);
         mWatchedProvider = null;
+        mWatchedRequest = null;
+        mWatchedFastestInterval = -1;
+        mLastWatchedFixTime = 0;
+    }
+
+    /**
+     * Fetches the last known location of every usable provider into the
+     * {@link LastLocationCache}, which also fills the {@link ProviderStateCache}.
+     */
+    @Override
+    protected void prefetch() {
+        LocationManager locationManager =
+                (LocationManager) mReactContext.getSystemService(Context.LOCATION_SERVICE);
+        ProviderStateCache states = ProviderStateCache.getInstance();
+        try {
+            for (String provider : ACTIVE_PROVIDERS) {
+                if (states.isProviderEnabled(mReactContext, locationManager, provider) && hasPermission(provider)) {
+                    LastLocationCache.getInstance().put(locationManager.getLastKnownLocation(provider));
+                }
+            }
+            if (getPassiveProvider() != null) {
+                LastLocationCache.getInstance().put(locationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER));
+            }
+        } catch (SecurityException e) {
+            FLog.w(ReactConstants.TAG, "LocationModule: Could not prefetch the last known locations", e);
+        }
     }
 
     @Nullable
-    private String getValidProvider(LocationManager locationManager, boolean highAccuracy) {
-        String provider =
-                highAccuracy ? LocationManager.GPS_PROVIDER : LocationManager.NETWORK_PROVIDER;
-        if (!locationManager.isProviderEnabled(provider)) {
-            provider = provider.equals(LocationManager.GPS_PROVIDER)
-                    ? LocationManager.NETWORK_PROVIDER
-                    : LocationManager.GPS_PROVIDER;
-            if (!locationManager.isProviderEnabled(provider)) {
+    private String getValidProvider(LocationManager locationManager, int accuracy) {
+        if (accuracy == LocationOptions.ACCURACY_PASSIVE) {
+            return getPassiveProvider();
+        }
+        ProviderStateCache states = ProviderStateCache.getInstance();
+        String provider = accuracy == LocationOptions.ACCURACY_HIGH
+                ? LocationManager.GPS_PROVIDER
+                : LocationManager.NETWORK_PROVIDER;
+        if (!states.isProviderEnabled(mReactContext, locationManager, provider)) {
+            provider = getOtherProvider(provider);
+            if (!states.isProviderEnabled(mReactContext, locationManager, provider)) {
                 return null;
             }
         }
         // If it's an enabled provider, but we don't have permissions, ignore it
-        int finePermission = ContextCompat.checkSelfPermission(mReactContext, android.Manifest.permission.ACCESS_FINE_LOCATION);
-        int coarsePermission = ContextCompat.checkSelfPermission(mReactContext, android.Manifest.permission.ACCESS_COARSE_LOCATION);
-        if ((provider.equals(LocationManager.GPS_PROVIDER) && finePermission != PackageManager.PERMISSION_GRANTED) ||
-                (provider.equals(LocationManager.NETWORK_PROVIDER) && coarsePermission != PackageManager.PERMISSION_GRANTED)) {
+        if (!hasPermission(provider)) {
             return null;
         }
         return provider;
     }
 
-    private static class SingleUpdateRequest {
-
-        private final Callback mSuccess;
-        private final Callback mError;
-        private final LocationManager mLocationManager;
-        private final String mProvider;
-        private final long mTimeout;
-        private Location mOldLocation;
-        private final Handler mHandler = new Handler();
-        private final Runnable mTimeoutRunnable = new Runnable() {
-            @Override
-            public void run() {
-                synchronized (SingleUpdateRequest.this) {
-                    if (!mTriggered) {
-                        mError.invoke(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
-                        mLocationManager.removeUpdates(mLocationListener);
-                        FLog.i(ReactConstants.TAG, "LocationModule: Location request timed out");
-                        mTriggered = true;
-                    }
-                }
-            }
-        };
-        private final LocationListener mLocationListener = new LocationListener() {
-            @Override
-            public void onLocationChanged(Location location) {
-                synchronized (SingleUpdateRequest.this) {
-                    if (!mTriggered && isBetterLocation(location, mOldLocation)) {
-                        mSuccess.invoke(locationToMap(location));
-                        mHandler.removeCallbacks(mTimeoutRunnable);
-                        mTriggered = true;
-                        mLocationManager.removeUpdates(mLocationListener);
-                    }
-
-                    mOldLocation = location;
-                }
-            }
-
-            @Override
-            public void onStatusChanged(String provider, int status, Bundle extras) {
-            }
-
-            @Override
-            public void onProviderEnabled(String provider) {
-            }
-
-            @Override
-            public void onProviderDisabled(String provider) {
+    /**
+     * @return every usable provider for a racing request, otherwise the one picked by
+     * {@link #getSingleProvider}, if any
+     */
+    private List<String> getSingleProviders(LocationManager locationManager, LocationOptions options) {
+        if (!options.race || options.accuracy == LocationOptions.ACCURACY_PASSIVE) {
+            String provider = getSingleProvider(locationManager, options);
+            return provider != null ? Collections.singletonList(provider) : Collections.<String>emptyList();
+        }
+        List<String> providers = new ArrayList<>(ACTIVE_PROVIDERS.length);
+        for (String provider : ACTIVE_PROVIDERS) {
+            if (ProviderStateCache.getInstance().isProviderEnabled(mReactContext, locationManager, provider)
+                    && hasPermission(provider)) {
+                providers.add(provider);
             }
-        };
-        private boolean mTriggered;
-
-        private SingleUpdateRequest(
-                LocationManager locationManager,
-                String provider,
-                long timeout,
-                Callback success,
-                Callback error) {
-            mLocationManager = locationManager;
-            mProvider = provider;
-            mTimeout = timeout;
-            mSuccess = success;
-            mError = error;
         }
+        return providers;
+    }
 
-        public void invoke(Location location) {
-            mOldLocation = location;
-            mLocationManager.requestLocationUpdates(mProvider, 100, 1, mLocationListener);
-            mHandler.postDelayed(mTimeoutRunnable, mTimeout);
+    /**
+     * Picks the provider of a single request like {@link #getValidProvider}, unless its
+     * {@link ProviderHealth} says it will probably not answer in time while the other one may.
+     */
+    @Nullable
+    private String getSingleProvider(LocationManager locationManager, LocationOptions options) {
+        String provider = getValidProvider(locationManager, options.accuracy);
+        if (provider == null || provider.equals(LocationManager.PASSIVE_PROVIDER)) {
+            return provider;
         }
+        ProviderHealth health = ProviderHealth.getInstance();
+        long now = SystemClock.currentTimeMillis();
+        if (health.isHealthy(provider, options.timeout, now)) {
+            return provider;
+        }
+        String other = getOtherProvider(provider);
+        if (ProviderStateCache.getInstance().isProviderEnabled(mReactContext, locationManager, other)
+                && hasPermission(other)
+                && health.isHealthy(other, options.timeout, now)) {
+            getMetrics().increment(LocationMetrics.PROVIDER_SWITCHES);
+            return other;
+        }
+        return provider;
+    }
 
-        private static final int TWO_MINUTES = 1000 * 60 * 2;
-
-        /**
-         * Determines whether one Location reading is better than the current Location fix
-         * taken from Android Examples https://developer.android.com/guide/topics/location/strategies.html
-         *
-         * @param location            The new Location that you want to evaluate
-         * @param currentBestLocation The current Location fix, to which you want to compare the new one
-         */
-        private boolean isBetterLocation(Location location, Location currentBestLocation) {
-            if (currentBestLocation == null) {
-                // A new location is always better than no location
-                return true;
-            }
-
-            // Check whether the new location fix is newer or older
-            long timeDelta = location.getTime() - currentBestLocation.getTime();
-            boolean isSignificantlyNewer = timeDelta > TWO_MINUTES;
-            boolean isSignificantlyOlder = timeDelta < -TWO_MINUTES;
-            boolean isNewer = timeDelta > 0;
+    private static String getOtherProvider(String provider) {
+        return provider.equals(LocationManager.GPS_PROVIDER)
+                ? LocationManager.NETWORK_PROVIDER
+                : LocationManager.GPS_PROVIDER;
+    }
 
-            // If it's been more than two minutes since the current location, use the new location
-            // because the user has likely moved
-            if (isSignificantlyNewer) {
-                return true;
-                // If the new location is more than two minutes older, it must be worse
-            } else if (isSignificantlyOlder) {
-                return false;
-            }
+    private boolean hasPermission(String provider) {
+        return ProviderStateCache.getInstance().hasPermission(mReactContext, provider.equals(LocationManager.GPS_PROVIDER)
+                ? Manifest.permission.ACCESS_FINE_LOCATION
+                : Manifest.permission.ACCESS_COARSE_LOCATION);
+    }
 
-            // Check whether the new location fix is more or less accurate
-            int accuracyDelta = (int) (location.getAccuracy() - currentBestLocation.getAccuracy());
-            boolean isLessAccurate = accuracyDelta > 0;
-            boolean isMoreAccurate = accuracyDelta < 0;
-            boolean isSignificantlyLessAccurate = accuracyDelta > 200;
+    /**
+     * The passive provider never turns on a radio or the GPS itself, it only sees the fixes other
+     * apps asked for. Those can come from any provider, so either location permission will do.
+     */
+    @Nullable
+    private String getPassiveProvider() {
+        if (!ProviderStateCache.getInstance().hasLocationPermission(mReactContext)) {
+            return null;
+        }
+        return LocationManager.PASSIVE_PROVIDER;
+    }
 
-            // Check if the old and new location are from the same provider
-            boolean isFromSameProvider = isSameProvider(location.getProvider(),
-                    currentBestLocation.getProvider());
+    /**
+     * {@link LocationRequestCompat} has no passive quality, the passive provider is what makes a
+     * request passive.
+     */
+    private static int toQuality(int accuracy) {
+        return accuracy == LocationOptions.ACCURACY_PASSIVE
+                ? LocationRequestCompat.QUALITY_LOW_POWER
+                : accuracy;
+    }
 
-            // Determine location quality using a combination of timeliness and accuracy
-            if (isMoreAccurate) {
-                return true;
-            } else if (isNewer && !isLessAccurate) {
-                return true;
-            } else if (isNewer && !isSignificantlyLessAccurate && isFromSameProvider) {
-                return true;
+    /**
+     * Registers with every provider at once, and drops all registrations together as soon as the
+     * group is answered.
+     */
+    private SingleLocationRequests.Registration requestRaceUpdates(
+            LocationManager locationManager,
+            List<String> providers,
+            int accuracy,
+            SingleLocationRequests.Group group) {
+        final List<SingleLocationRequests.Registration> registrations = new ArrayList<>(providers.size());
+        try {
+            for (String provider : providers) {
+                // a provider that lost the race did not time out
+                registrations.add(requestSingleUpdates(locationManager, provider, accuracy, group, false));
             }
-
-            return false;
+        } catch (RuntimeException e) {
+            for (SingleLocationRequests.Registration registration : registrations) {
+                registration.cancel();
+            }
+            throw e;
         }
+        return () -> {
+            for (SingleLocationRequests.Registration registration : registrations) {
+                registration.cancel();
+            }
+        };
+    }
 
-        /**
-         * Checks whether two providers are the same
-         */
-        private boolean isSameProvider(String provider1, String provider2) {
-            if (provider1 == null) {
-                return provider2 == null;
+    /**
+     * Reports the first fix, or with {@code reportTimeout} its absence once the registration is
+     * dropped, to {@link ProviderHealth}.
+     */
+    private SingleLocationRequests.Registration requestSingleUpdates(
+            final LocationManager locationManager,
+            final String provider,
+            int accuracy,
+            final SingleLocationRequests.Group group,
+            final boolean reportTimeout) {
+        final long start = SystemClock.currentTimeMillis();
+        final AtomicBoolean reported = new AtomicBoolean();
+        final LocationListenerCompat listener = new LocationListenerCompat() {
+            @Override
+            public void onLocationChanged(Location location) {
+                if (reported.compareAndSet(false, true)) {
+                    long now = SystemClock.currentTimeMillis();
+                    ProviderHealth.getInstance().recordFix(provider, now - start,
+                            location.hasAccuracy() ? location.getAccuracy() : Double.NaN, now);
+                }
+                group.onLocation(location);
             }
-            return provider1.equals(provider2);
-        }
+        };
+        LocationRequestCompat request = new LocationRequestCompat.Builder(SINGLE_UPDATE_INTERVAL_MS)
+                .setQuality(toQuality(accuracy))
+                .setMinUpdateDistanceMeters(0)
+                .build();
+        LocationManagerCompat.requestLocationUpdates(
+                locationManager, provider, request, listener, LocationThread.getLooper());
+        return () -> {
+            LocationManagerCompat.removeUpdates(locationManager, listener);
+            if (reported.compareAndSet(false, true) && reportTimeout) {
+                ProviderHealth.getInstance().recordTimeout(provider, SystemClock.currentTimeMillis());
+            }
+        };
     }
 }
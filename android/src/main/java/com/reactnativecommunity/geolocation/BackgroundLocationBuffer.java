@@ -0,0 +1,48 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the serialized fixes of all watches while the app is in the background, so that they
+ * reach JS as a single batch once it comes back instead of waking it up for every fix. Bounded:
+ * when full, the oldest fix is dropped to make room.
+ */
+class BackgroundLocationBuffer {
+    static final int DEFAULT_CAPACITY = 1000;
+
+    private final int mCapacity;
+    private final ArrayDeque<WritableMap> mPending;
+
+    BackgroundLocationBuffer(int capacity) {
+        mCapacity = capacity;
+        mPending = new ArrayDeque<>(Math.min(capacity, 64));
+    }
+
+    synchronized void add(WritableMap location) {
+        if (mPending.size() == mCapacity) {
+            mPending.pollFirst();
+        }
+        mPending.addLast(location);
+    }
+
+    /**
+     * Removes and returns everything held, oldest first, or null when empty.
+     */
+    synchronized @Nullable WritableArray drain() {
+        if (mPending.isEmpty()) {
+            return null;
+        }
+        WritableArray batch = Arguments.createArray();
+        WritableMap location;
+        while ((location = mPending.pollFirst()) != null) {
+            batch.pushMap(location);
+        }
+        return batch;
+    }
+}
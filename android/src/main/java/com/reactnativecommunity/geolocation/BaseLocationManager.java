@@ -1,51 +1,85 @@
 package com.reactnativecommunity.geolocation;
 
 import android.location.Location;
-import android.os.Build;
-import android.os.Bundle;
+import android.os.SystemClock;
 
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 public abstract class BaseLocationManager {
     protected static final float RCT_DEFAULT_LOCATION_ACCURACY = 100;
+    private static final int TWO_MINUTES = 1000 * 60 * 2;
+    /**
+     * Watch id used by {@link #startObserving(ReadableMap)}.
+     */
+    protected static final int LEGACY_WATCH_ID = -1;
+    /**
+     * Internal watch keeping the provider running while the track recorder is on.
+     */
+    private static final int RECORDER_WATCH_ID = -2;
+    /**
+     * Internal watch keeping the provider running while geofences are monitored.
+     */
+    private static final int GEOFENCE_WATCH_ID = -3;
     public ReactApplicationContext mReactContext;
+    private final WatchRegistry mWatches = new WatchRegistry();
+    private final WatchRegistry.Route mRoute = new WatchRegistry.Route();
+    private final int[] mOwnWatchId = new int[1];
+    private final MovementDetector mMovement = new MovementDetector();
+    /**
+     * Guards provider (re-)registration, which watch changes do on the calling thread and
+     * movement changes on the location thread.
+     */
+    private final Object mRegistration = new Object();
+    // set on the calling thread, read for every fix on the location thread
+    private volatile @Nullable TrackRecorder mRecorder;
+    private volatile @Nullable GeofenceIndex mGeofences;
+    private final GeofenceIndex.Listener mGeofenceListener = this::emitGeofenceTransition;
+    private volatile @Nullable LocationBatcher mBatcher;
+    /**
+     * Set while watched fixes are held back for JS, guarded by {@link #mRoute}.
+     */
+    private @Nullable BackgroundLocationBuffer mBackground;
+    private @Nullable ObservingListener mObservingListener;
+    /**
+     * Whether the provider may hold batched fixes back itself, see
+     * {@link LocationEngine#CAPABILITY_PROVIDER_BATCHING}.
+     */
+    private volatile boolean mProviderBatching;
+    private final LocationMetrics mMetrics = new LocationMetrics();
+    // cells of the last fix, only touched on the location thread
+    private long mGeohash = SpatialEncoder.NO_CELL;
+    private long mTile = SpatialEncoder.NO_CELL;
+    private int mGeohashPrecision;
+    private int mTileZoom;
+
+    interface ObservingListener {
+        /**
+         * Called whenever watches, recording or geofencing start or stop.
+         *
+         * @param observing whether the provider is still registered for any of them
+         */
+        void onObservingChanged(boolean observing);
+    }
 
     protected BaseLocationManager(ReactApplicationContext reactContext) {
         mReactContext = reactContext;
     }
 
-    protected static WritableMap locationToMap(Location location) {
-        WritableMap map = Arguments.createMap();
-        WritableMap coords = Arguments.createMap();
-        coords.putDouble("latitude", location.getLatitude());
-        coords.putDouble("longitude", location.getLongitude());
-        coords.putDouble("altitude", location.getAltitude());
-        coords.putDouble("accuracy", location.getAccuracy());
-        coords.putDouble("heading", location.getBearing());
-        coords.putDouble("speed", location.getSpeed());
-        map.putMap("coords", coords);
-        map.putDouble("timestamp", location.getTime());
-
-        Bundle bundle = location.getExtras();
-        if (bundle != null) {
-            WritableMap extras = Arguments.createMap();
-            for (String key: bundle.keySet()) {
-                putIntoMap(extras, key, bundle.get(key));
-            }
-
-            map.putMap("extras", extras);
-        }
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            map.putBoolean("mocked", location.isFromMockProvider());
-        }
-
-        return map;
+    protected static WritableMap locationToMap(Location location, boolean includeExtras) {
+        return LocationSerializer.toMap(location, includeExtras);
     }
 
     protected static void putIntoMap(WritableMap map, String key, Object value) {
@@ -70,36 +104,642 @@ public abstract class BaseLocationManager {
         }
     }
 
+    /**
+     * Starts or updates the watch with the given id. The provider registration is re-issued with
+     * options that satisfy all active watches.
+     */
+    public void startObserving(int watchId, ReadableMap options) {
+        mWatches.add(watchId, LocationOptions.fromReactMap(options));
+        onWatchesChanged();
+    }
+
+    /**
+     * Single-watch variant kept for callers that do not track watch ids.
+     */
+    public void startObserving(ReadableMap options) {
+        startObserving(LEGACY_WATCH_ID, options);
+    }
+
+    public void stopObserving(int watchId) {
+        if (mWatches.remove(watchId)) {
+            onWatchesChanged();
+        }
+    }
+
+    /**
+     * Appends every fix the provider delivers to {@code recorder}, requesting updates with
+     * {@code options} for as long as recording is on, whether or not JS is watching.
+     */
+    public void startRecording(TrackRecorder recorder, ReadableMap options) {
+        mRecorder = recorder;
+        mWatches.addInternal(RECORDER_WATCH_ID, LocationOptions.fromReactMap(options));
+        onWatchesChanged();
+    }
+
+    public void stopRecording() {
+        mRecorder = null;
+        stopObserving(RECORDER_WATCH_ID);
+    }
+
+    /**
+     * Tests every fix the provider delivers against {@code geofences}, requesting updates with
+     * {@code options} for as long as geofences are monitored, whether or not JS is watching.
+     */
+    public void startGeofencing(GeofenceIndex geofences, ReadableMap options) {
+        mGeofences = geofences;
+        mWatches.addInternal(GEOFENCE_WATCH_ID, LocationOptions.fromReactMap(options));
+        onWatchesChanged();
+    }
+
+    public void stopGeofencing() {
+        mGeofences = null;
+        stopObserving(GEOFENCE_WATCH_ID);
+    }
+
+    /**
+     * Stops all watches started from JS. Recording and geofencing go on until
+     * {@link #stopRecording()} and {@link #stopGeofencing()}.
+     */
+    public void stopObserving() {
+        mWatches.clear();
+        onWatchesChanged();
+    }
+
+    /**
+     * Stops this manager and carries on with {@code next}: active watches, with their ids and
+     * options, the track recorder and the monitored geofences are moved over, and {@code next}
+     * registers its provider for them. Pending batches are delivered first. Used when the module
+     * switches location engines.
+     */
+    void handOver(BaseLocationManager next) {
+        releaseBatching();
+        synchronized (mRegistration) {
+            mWatches.moveTo(next.mWatches);
+            next.mRecorder = mRecorder;
+            next.mGeofences = mGeofences;
+            mRecorder = null;
+            mGeofences = null;
+            mMovement.reset();
+            removeWatchUpdates();
+        }
+        if (!next.mWatches.isEmpty()) {
+            next.onWatchesChanged();
+        }
+    }
+
+    void setProviderBatching(boolean providerBatching) {
+        mProviderBatching = providerBatching;
+    }
+
+    void setObservingListener(@Nullable ObservingListener listener) {
+        mObservingListener = listener;
+    }
+
+    /**
+     * Pipeline metrics of this manager, watches and single requests alike.
+     */
+    LocationMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Whether the provider is registered for watches, recording or geofencing.
+     */
+    public boolean isObserving() {
+        return !mWatches.isEmpty();
+    }
+
+    /**
+     * Holds watched fixes back from JS from now on, up to {@code capacity} of them, until
+     * {@link #stopBuffering()}. Batches that are already pending are delivered first.
+     */
+    public void startBuffering(int capacity) {
+        synchronized (mRoute) {
+            if (mBackground == null) {
+                mBackground = new BackgroundLocationBuffer(capacity);
+            }
+        }
+        LocationBatcher batcher = mBatcher;
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * Delivers the fixes held back since {@link #startBuffering(int)} as a single batch, and
+     * emits fixes as they come again.
+     */
+    public void stopBuffering() {
+        BackgroundLocationBuffer background;
+        synchronized (mRoute) {
+            background = mBackground;
+            mBackground = null;
+        }
+        WritableArray batch = background != null ? background.drain() : null;
+        if (batch != null) {
+            emitBatch(batch);
+        }
+    }
+
+    private void onWatchesChanged() {
+        releaseBatching();
+
+        ObservingListener listener = mObservingListener;
+        if (listener != null) {
+            listener.onObservingChanged(!mWatches.isEmpty());
+        }
+
+        synchronized (mRegistration) {
+            LocationOptions merged = mWatches.merged(mMovement.isStationary());
+            if (merged == null) {
+                mMovement.reset();
+                removeWatchUpdates();
+                return;
+            }
+
+            if (merged.isBatching()) {
+                mBatcher = new LocationBatcher(merged.maxBatchSize, merged.maxBatchDelayMs, this::emitBatch);
+            }
+            requestWatchUpdates(merged, providerBatchDelayMs(merged));
+        }
+    }
+
+    /**
+     * Re-issues the provider request when the device starts or stops moving, so that adaptive
+     * watches ({@code stationaryInterval}) sample less often while it stands still. Watches and
+     * their JS subscriptions are left as they are. The watches are merged again under the
+     * registration lock, so a watch stopped meanwhile is not registered again.
+     */
+    private void onMovementChanged() {
+        synchronized (mRegistration) {
+            LocationOptions merged = mWatches.merged(mMovement.isStationary());
+            if (merged != null) {
+                requestWatchUpdates(merged, providerBatchDelayMs(merged));
+            }
+        }
+    }
+
+    private long providerBatchDelayMs(LocationOptions merged) {
+        return mProviderBatching && mWatches.allBatching() ? merged.maxBatchDelayMs : 0;
+    }
+
+    /**
+     * (Re-)registers the provider for watched updates. Fixes should be passed to
+     * {@link #emitLocation} or {@link #emitLocations}.
+     *
+     * @param options              merged options of all active watches
+     * @param providerBatchDelayMs how long the provider may hold fixes back, 0 unless every
+     *                             active watch is batched and the engine has
+     *                             {@link LocationEngine#CAPABILITY_PROVIDER_BATCHING}
+     */
+    protected abstract void requestWatchUpdates(LocationOptions options, long providerBatchDelayMs);
+
+    protected abstract void removeWatchUpdates();
+
+    /**
+     * Whether the fixes of this manager come from the device. Others, such as replayed ones, may
+     * run ahead of the wall clock, so they are kept out of the process-wide
+     * {@link LastLocationCache}, where they would outlive the engine, and out of the recorded
+     * track.
+     */
+    protected boolean isLive() {
+        return true;
+    }
+
+    /**
+     * Loads what this manager can answer requests from, such as the last known locations, into
+     * memory ahead of the first request. Called on the location thread when warm start is on.
+     */
+    protected void prefetch() {
+    }
+
+    /**
+     * Sends a watched fix to the watches it is relevant for: straight away as
+     * {@code geolocationDidChange}, through the batcher for batched watches, or into the
+     * background buffer while buffering. The payload lists the receiving watches under
+     * {@code watchIds}. Every fix is tested against the monitored geofences, and live fixes also
+     * refresh the {@link LastLocationCache} and go to the track recorder.
+     */
+    protected void emitLocation(Location location) {
+        mMetrics.increment(LocationMetrics.FIXES_RECEIVED);
+        boolean live = isLive();
+        if (live) {
+            LastLocationCache.getInstance().put(location);
+        }
+        TrackRecorder recorder = live ? mRecorder : null;
+        if (recorder != null) {
+            try {
+                recorder.append(location);
+            } catch (IOException e) {
+                FLog.w(ReactConstants.TAG, "LocationModule: Could not record location", e);
+            }
+        }
+        GeofenceIndex geofences = mGeofences;
+        if (geofences != null) {
+            geofences.update(location, mGeofenceListener);
+        }
+        if (mWatches.hasAdaptive() && mMovement.update(location)) {
+            onMovementChanged();
+        }
+        if (SpatialEncoder.getInstance().isEnabled()) {
+            updateCells(location);
+        }
+        synchronized (mRoute) {
+            mWatches.route(location, mRoute);
+            if (mRoute.filteredCount > 0) {
+                mMetrics.add(LocationMetrics.FIXES_FILTERED, mRoute.filteredCount);
+            }
+
+            LocationBatcher batcher = mBatcher;
+            if (mRoute.batchedCount > 0) {
+                deliver(watchedLocationToMap(location, false, mRoute.batched, mRoute.batchedCount), batcher);
+            }
+            if (mRoute.batchedExtrasCount > 0) {
+                deliver(watchedLocationToMap(location, true, mRoute.batchedExtras, mRoute.batchedExtrasCount), batcher);
+            }
+
+            if (mRoute.immediateCount > 0) {
+                deliver(watchedLocationToMap(location, false, mRoute.immediate, mRoute.immediateCount), null);
+            }
+            if (mRoute.immediateExtrasCount > 0) {
+                deliver(watchedLocationToMap(location, true, mRoute.immediateExtras, mRoute.immediateExtrasCount), null);
+            }
+
+            for (int i = 0; i < mRoute.ownCount; i++) {
+                WatchRegistry.Watch watch = mRoute.own[i];
+                // the buffer holds regular payloads, compact ones only make sense in sequence
+                if (watch.encoder != null && mBackground == null) {
+                    mMetrics.increment(LocationMetrics.FIXES_EMITTED);
+                    emitCompactLocation(watch.encoder.encode(watch.id, mRoute.ownLocations[i]));
+                    continue;
+                }
+                mOwnWatchId[0] = watch.id;
+                WritableMap map = watchedLocationToMap(mRoute.ownLocations[i], watch.options.includeExtras, mOwnWatchId, 1);
+                deliver(map, watch.options.isBatching() ? batcher : null);
+            }
+        }
+
+        if (mMetrics.isEnabled() && location.getElapsedRealtimeNanos() > 0) {
+            mMetrics.record(LocationMetrics.PROVIDER_TO_EMIT_US,
+                    (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1000);
+        }
+    }
+
+    private void deliver(WritableMap map, @Nullable LocationBatcher batcher) {
+        mMetrics.increment(LocationMetrics.FIXES_EMITTED);
+        BackgroundLocationBuffer background = mBackground;
+        if (background != null) {
+            background.add(map);
+        } else if (batcher != null) {
+            batcher.add(map);
+        } else {
+            emitWatchedLocation(map);
+        }
+    }
+
+    /**
+     * Same as {@link #emitLocation} for a group of fixes delivered together by the provider.
+     *
+     * @param flush whether the provider already waited for the batch window, in which case
+     *              the pending batch is delivered right away instead of waiting for another one
+     */
+    protected void emitLocations(List<Location> locations, boolean flush) {
+        for (Location location : locations) {
+            emitLocation(location);
+        }
+
+        LocationBatcher batcher = mBatcher;
+        if (flush && batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    private WritableMap watchedLocationToMap(Location location, boolean includeExtras, int[] watchIds, int count) {
+        long start = mMetrics.isEnabled() ? System.nanoTime() : 0;
+        WritableMap map = locationToMap(location, includeExtras);
+        if (start != 0) {
+            mMetrics.record(LocationMetrics.LOCATION_TO_MAP_US, (System.nanoTime() - start) / 1000);
+        }
+        WritableArray ids = Arguments.createArray();
+        for (int i = 0; i < count; i++) {
+            ids.pushInt(watchIds[i]);
+        }
+        map.putArray(LocationSerializer.KEY_WATCH_IDS, ids);
+        return map;
+    }
+
+    private void emitWatchedLocation(WritableMap map) {
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("geolocationDidChange", map);
+    }
+
+    private void emitCompactLocation(WritableArray array) {
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("geolocationCompactDidChange", array);
+    }
+
+    private void emitGeofenceTransition(String fenceId, String transition, Location location) {
+        WritableMap map = locationToMap(location, false);
+        map.putString("geofenceId", fenceId);
+        map.putString("transition", transition);
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("geolocationGeofenceTransition", map);
+    }
+
+    /**
+     * Emits {@code geolocationTileDidChange} when the fix is in another geohash cell or tile than
+     * the last one, with the previous cells as {@code previousGeohash} and {@code previousQuadkey}.
+     */
+    private void updateCells(Location location) {
+        SpatialEncoder encoder = SpatialEncoder.getInstance();
+        int precision = encoder.getGeohashPrecision();
+        int zoom = encoder.getTileZoom();
+        if (precision != mGeohashPrecision || zoom != mTileZoom) {
+            mGeohashPrecision = precision;
+            mTileZoom = zoom;
+            mGeohash = SpatialEncoder.NO_CELL;
+            mTile = SpatialEncoder.NO_CELL;
+        }
+        long geohash = SpatialEncoder.geohash(location.getLatitude(), location.getLongitude(), precision);
+        long tile = SpatialEncoder.tile(location.getLatitude(), location.getLongitude(), zoom);
+        long previousGeohash = mGeohash;
+        long previousTile = mTile;
+        if (geohash == previousGeohash && tile == previousTile) {
+            return;
+        }
+        mGeohash = geohash;
+        mTile = tile;
+        if (previousGeohash == SpatialEncoder.NO_CELL && previousTile == SpatialEncoder.NO_CELL) {
+            // the first fix, or the first since the configuration changed, enters no cell
+            return;
+        }
+
+        WritableMap map = locationToMap(location, false);
+        if (precision > 0 && previousGeohash != SpatialEncoder.NO_CELL) {
+            map.putString("previousGeohash", SpatialEncoder.geohashToString(previousGeohash, precision));
+        }
+        if (zoom > 0 && previousTile != SpatialEncoder.NO_CELL) {
+            map.putString("previousQuadkey", SpatialEncoder.quadkeyToString(previousTile, zoom));
+        }
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("geolocationTileDidChange", map);
+    }
+
+    private void releaseBatching() {
+        LocationBatcher batcher = mBatcher;
+        mBatcher = null;
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    private void emitBatch(WritableArray batch) {
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("geolocationBatchDidChange", batch);
+    }
+
+    /**
+     * Determines whether one Location reading is better than the current Location fix
+     * taken from Android Examples https://developer.android.com/guide/topics/location/strategies.html
+     *
+     * @param location            The new Location that you want to evaluate
+     * @param currentBestLocation The current Location fix, to which you want to compare the new one
+     */
+    protected static boolean isBetterLocation(Location location, Location currentBestLocation) {
+        if (currentBestLocation == null) {
+            // A new location is always better than no location
+            return true;
+        }
+
+        // Check whether the new location fix is newer or older
+        long timeDelta = location.getTime() - currentBestLocation.getTime();
+        boolean isSignificantlyNewer = timeDelta > TWO_MINUTES;
+        boolean isSignificantlyOlder = timeDelta < -TWO_MINUTES;
+        boolean isNewer = timeDelta > 0;
+
+        // If it's been more than two minutes since the current location, use the new location
+        // because the user has likely moved
+        if (isSignificantlyNewer) {
+            return true;
+            // If the new location is more than two minutes older, it must be worse
+        } else if (isSignificantlyOlder) {
+            return false;
+        }
+
+        // Check whether the new location fix is more or less accurate
+        int accuracyDelta = (int) (location.getAccuracy() - currentBestLocation.getAccuracy());
+        boolean isLessAccurate = accuracyDelta > 0;
+        boolean isMoreAccurate = accuracyDelta < 0;
+        boolean isSignificantlyLessAccurate = accuracyDelta > 200;
+
+        // Check if the old and new location are from the same provider
+        boolean isFromSameProvider = isSameProvider(location.getProvider(),
+                currentBestLocation.getProvider());
+
+        // Determine location quality using a combination of timeliness and accuracy
+        if (isMoreAccurate) {
+            return true;
+        } else if (isNewer && !isLessAccurate) {
+            return true;
+        } else if (isNewer && !isSignificantlyLessAccurate && isFromSameProvider) {
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether two providers are the same
+     */
+    private static boolean isSameProvider(String provider1, String provider2) {
+        if (provider1 == null) {
+            return provider2 == null;
+        }
+        return provider1.equals(provider2);
+    }
+
     protected void emitError(int code, String message) {
+        mMetrics.increment(LocationMetrics.ERRORS);
         mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit("geolocationError", PositionError.buildError(code, message));
     }
 
     abstract public void getCurrentLocationData(ReadableMap options, final Callback success, Callback error);
-    abstract public void startObserving(ReadableMap options);
-    abstract public void stopObserving();
 
     protected static class LocationOptions {
+        /**
+         * Accuracy levels, from most to least power hungry. The values match the fused
+         * provider's {@code Priority} constants, and the quality constants of
+         * {@code LocationRequestCompat} except for passive, which only receives fixes requested
+         * by someone else.
+         */
+        protected static final int ACCURACY_HIGH = 100;
+        protected static final int ACCURACY_BALANCED = 102;
+        protected static final int ACCURACY_LOW = 104;
+        protected static final int ACCURACY_PASSIVE = 105;
+
         protected final int interval;
         protected final int fastestInterval;
+        protected final int stationaryInterval;
         protected final long timeout;
         protected final double maximumAge;
         protected final boolean highAccuracy;
+        protected final int accuracy;
         protected final float distanceFilter;
+        protected final float maxAccuracy;
+        protected final float maxSpeed;
+        protected final boolean smoothing;
+        protected final int maxBatchSize;
+        protected final long maxBatchDelayMs;
+        protected final boolean includeExtras;
+        protected final boolean compact;
+        /**
+         * Single requests only: whether every usable provider is asked at once.
+         */
+        protected final boolean race;
+        /**
+         * Single requests only: fixes less accurate than this, in meters, do not answer the
+         * request before its {@code softDeadline}.
+         */
+        protected final float desiredAccuracy;
+        protected final long softDeadline;
 
         private LocationOptions(
                 int interval,
                 int fastestInterval,
+                int stationaryInterval,
                 long timeout,
                 double maximumAge,
-                boolean highAccuracy,
-                float distanceFilter) {
+                int accuracy,
+                float distanceFilter,
+                float maxAccuracy,
+                float maxSpeed,
+                boolean smoothing,
+                int maxBatchSize,
+                long maxBatchDelayMs,
+                boolean includeExtras,
+                boolean compact,
+                boolean race,
+                float desiredAccuracy,
+                long softDeadline) {
             this.interval = interval;
             this.fastestInterval = fastestInterval;
+            this.stationaryInterval = stationaryInterval;
             this.timeout = timeout;
             this.maximumAge = maximumAge;
-            this.highAccuracy = highAccuracy;
+            this.highAccuracy = accuracy == ACCURACY_HIGH;
+            this.accuracy = accuracy;
             this.distanceFilter = distanceFilter;
+            this.maxAccuracy = maxAccuracy;
+            this.maxSpeed = maxSpeed;
+            this.smoothing = smoothing;
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelayMs = maxBatchDelayMs;
+            this.includeExtras = includeExtras;
+            this.compact = compact;
+            this.race = race;
+            this.desiredAccuracy = desiredAccuracy;
+            this.softDeadline = softDeadline;
+        }
+
+        protected boolean isBatching() {
+            return maxBatchSize > 1 || maxBatchDelayMs > 0;
+        }
+
+        /**
+         * Whether the watch samples less often while the device is stationary.
+         */
+        protected boolean isAdaptive() {
+            return stationaryInterval > 0;
+        }
+
+        /**
+         * What an adaptive watch asks the provider for while the device is stationary: fixes
+         * every {@code stationaryInterval}, at low power unless it already asked for less.
+         */
+        protected LocationOptions toStationary() {
+            return new LocationOptions(
+                    Math.max(interval, stationaryInterval),
+                    -1,
+                    stationaryInterval,
+                    timeout,
+                    maximumAge,
+                    Math.max(accuracy, ACCURACY_LOW),
+                    distanceFilter,
+                    maxAccuracy,
+                    maxSpeed,
+                    smoothing,
+                    maxBatchSize,
+                    maxBatchDelayMs,
+                    includeExtras,
+                    compact,
+                    race,
+                    desiredAccuracy,
+                    softDeadline);
+        }
+
+        /**
+         * The shortest spacing between fixes this watch wants, {@code interval} unless a
+         * {@code fastestInterval} was given.
+         */
+        protected int effectiveFastestInterval() {
+            return fastestInterval >= 0 ? fastestInterval : interval;
+        }
+
+        /**
+         * Combines the options of several watches into a single provider request that meets each
+         * of them: the shortest interval and distance filter, the best accuracy any watch asked for,
+         * and the tightest batch limits among the batched watches. Filter options and extras stay
+         * with each watch and are left unset.
+         */
+        protected static LocationOptions merge(List<LocationOptions> options) {
+            LocationOptions first = options.get(0);
+            int interval = first.interval;
+            int fastestInterval = first.effectiveFastestInterval();
+            boolean hasFastestInterval = false;
+            long timeout = first.timeout;
+            double maximumAge = first.maximumAge;
+            int accuracy = first.accuracy;
+            float distanceFilter = Math.max(first.distanceFilter, 0);
+            boolean batching = false;
+            int maxBatchSize = Integer.MAX_VALUE;
+            long maxBatchDelayMs = Long.MAX_VALUE;
+
+            for (LocationOptions option : options) {
+                interval = Math.min(interval, option.interval);
+                fastestInterval = Math.min(fastestInterval, option.effectiveFastestInterval());
+                hasFastestInterval |= option.fastestInterval >= 0;
+                timeout = Math.max(timeout, option.timeout);
+                maximumAge = Math.min(maximumAge, option.maximumAge);
+                accuracy = Math.min(accuracy, option.accuracy);
+                distanceFilter = Math.min(distanceFilter, Math.max(option.distanceFilter, 0));
+                if (option.isBatching()) {
+                    batching = true;
+                    maxBatchSize = Math.min(maxBatchSize, option.maxBatchSize);
+                    if (option.maxBatchDelayMs > 0) {
+                        maxBatchDelayMs = Math.min(maxBatchDelayMs, option.maxBatchDelayMs);
+                    }
+                }
+            }
+
+            return new LocationOptions(
+                    interval,
+                    hasFastestInterval ? fastestInterval : -1,
+                    -1,
+                    timeout,
+                    maximumAge,
+                    accuracy,
+                    distanceFilter,
+                    Float.POSITIVE_INFINITY,
+                    Float.POSITIVE_INFINITY,
+                    false,
+                    batching ? maxBatchSize : 1,
+                    maxBatchDelayMs == Long.MAX_VALUE ? 0 : maxBatchDelayMs,
+                    false,
+                    false,
+                    false,
+                    Float.POSITIVE_INFINITY,
+                    -1);
         }
 
         protected static LocationOptions fromReactMap(ReadableMap map) {
@@ -108,17 +748,78 @@ public abstract class BaseLocationManager {
                     map.hasKey("interval") ? map.getInt("interval") : 10000;
             int fastestInterval =
                     map.hasKey("fastestInterval") ? map.getInt("fastestInterval") : -1;
+            int stationaryInterval =
+                    map.hasKey("stationaryInterval") ? map.getInt("stationaryInterval") : -1;
             long timeout =
                     map.hasKey("timeout") ? (long) map.getDouble("timeout") : 1000 * 60 * 10;
             double maximumAge =
                     map.hasKey("maximumAge") ? map.getDouble("maximumAge") : Double.POSITIVE_INFINITY;
             boolean highAccuracy =
                     map.hasKey("enableHighAccuracy") && map.getBoolean("enableHighAccuracy");
+            int accuracy = map.hasKey("accuracy") ?
+                    accuracyFromString(map.getString("accuracy"), highAccuracy) :
+                    highAccuracy ? ACCURACY_HIGH : ACCURACY_LOW;
             float distanceFilter = map.hasKey("distanceFilter") ?
                     (float) map.getDouble("distanceFilter") :
                     RCT_DEFAULT_LOCATION_ACCURACY;
+            float maxAccuracy = map.hasKey("maxAccuracy") ?
+                    (float) map.getDouble("maxAccuracy") :
+                    Float.POSITIVE_INFINITY;
+            float maxSpeed = map.hasKey("maxSpeed") ?
+                    (float) map.getDouble("maxSpeed") :
+                    Float.POSITIVE_INFINITY;
+            boolean smoothing =
+                    map.hasKey("smoothing") && map.getBoolean("smoothing");
+            // compact watches deliver every fix as it comes, in their own format
+            boolean compact =
+                    map.hasKey("compact") && map.getBoolean("compact");
+            long maxBatchDelayMs =
+                    map.hasKey("maxBatchDelayMs") && !compact ? (long) map.getDouble("maxBatchDelayMs") : 0;
+            // a batch bounded only by time is flushed by the delay alone
+            int maxBatchSize = map.hasKey("maxBatchSize") && !compact ?
+                    map.getInt("maxBatchSize") :
+                    maxBatchDelayMs > 0 ? Integer.MAX_VALUE : 1;
+            boolean includeExtras =
+                    map.hasKey("includeExtras") && map.getBoolean("includeExtras");
+            boolean race =
+                    map.hasKey("race") && map.getBoolean("race");
+            float desiredAccuracy = map.hasKey("desiredAccuracy") ?
+                    (float) map.getDouble("desiredAccuracy") :
+                    Float.POSITIVE_INFINITY;
+            long softDeadline =
+                    map.hasKey("softDeadline") ? (long) map.getDouble("softDeadline") : -1;
+
+            return new LocationOptions(
+                    interval,
+                    fastestInterval,
+                    stationaryInterval,
+                    timeout,
+                    maximumAge,
+                    accuracy,
+                    distanceFilter,
+                    maxAccuracy,
+                    maxSpeed,
+                    smoothing,
+                    maxBatchSize,
+                    maxBatchDelayMs,
+                    includeExtras,
+                    compact,
+                    race,
+                    desiredAccuracy,
+                    softDeadline);
+        }
 
-            return new LocationOptions(interval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter);
+        private static int accuracyFromString(String accuracy, boolean highAccuracy) {
+            if ("high".equals(accuracy)) {
+                return ACCURACY_HIGH;
+            } else if ("balanced".equals(accuracy)) {
+                return ACCURACY_BALANCED;
+            } else if ("low".equals(accuracy)) {
+                return ACCURACY_LOW;
+            } else if ("passive".equals(accuracy)) {
+                return ACCURACY_PASSIVE;
+            }
+            return highAccuracy ? ACCURACY_HIGH : ACCURACY_LOW;
         }
     }
 }
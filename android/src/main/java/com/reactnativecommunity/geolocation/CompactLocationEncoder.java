@@ -0,0 +1,55 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+
+/**
+ * Encodes the fixes of one {@code compact} watch as flat arrays of numbers instead of nested maps
+ * with string keys:
+ * <pre>
+ * [watchId, keyframe, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked]
+ * </pre>
+ * Values are fixed point: degrees * 1e7 (about 1 cm) for latitude and longitude, centimeters for
+ * altitude and accuracy, hundredths of a degree for heading, cm/s for speed and millis for the
+ * timestamp. Except on keyframes ({@code keyframe} is 1), each value is the difference to the
+ * previous fix of the watch, which keeps the numbers short. A keyframe is sent first and every
+ * {@link #KEYFRAME_INTERVAL} fixes after that.
+ */
+class CompactLocationEncoder {
+    static final int KEYFRAME_INTERVAL = 64;
+
+    private static final double[] SCALES = new double[LocationSerializer.FIELD_COUNT];
+
+    static {
+        SCALES[LocationSerializer.LATITUDE] = 1e7;
+        SCALES[LocationSerializer.LONGITUDE] = 1e7;
+        SCALES[LocationSerializer.ALTITUDE] = 100;
+        SCALES[LocationSerializer.ACCURACY] = 100;
+        SCALES[LocationSerializer.HEADING] = 100;
+        SCALES[LocationSerializer.SPEED] = 100;
+        SCALES[LocationSerializer.TIMESTAMP] = 1;
+        SCALES[LocationSerializer.MOCKED] = 1;
+    }
+
+    private final double[] mPacked = new double[LocationSerializer.FIELD_COUNT];
+    private final long[] mPrevious = new long[LocationSerializer.FIELD_COUNT];
+    private int mSinceKeyframe = -1;
+
+    WritableArray encode(int watchId, Location location) {
+        LocationSerializer.write(location, mPacked, 0);
+        boolean keyframe = mSinceKeyframe < 0 || mSinceKeyframe >= KEYFRAME_INTERVAL - 1;
+        mSinceKeyframe = keyframe ? 0 : mSinceKeyframe + 1;
+
+        WritableArray array = Arguments.createArray();
+        array.pushInt(watchId);
+        array.pushInt(keyframe ? 1 : 0);
+        for (int field = 0; field < LocationSerializer.FIELD_COUNT; field++) {
+            long value = Math.round(mPacked[field] * SCALES[field]);
+            array.pushDouble(keyframe ? value : value - mPrevious[field]);
+            mPrevious[field] = value;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,286 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circular and polygonal geofences, and which of them the device is in. Fences are indexed on a
+ * grid of {@link #CELL_DEGREES} cells covering their bounding boxes, so a fix is only tested
+ * against the fences of its own cell (plus the few large ones, and those it is inside of),
+ * however many there are. Only transitions are reported: entering a fence, leaving it, and
+ * having stayed in it for its dwell time.
+ */
+class GeofenceIndex {
+    interface Listener {
+        void onTransition(String fenceId, String transition, Location location);
+    }
+
+    static final String TRANSITION_ENTER = "enter";
+    static final String TRANSITION_EXIT = "exit";
+    static final String TRANSITION_DWELL = "dwell";
+
+    /**
+     * About 1.1 km of latitude.
+     */
+    private static final double CELL_DEGREES = 0.01;
+    /**
+     * Fences covering more cells than this are tested against every fix instead.
+     */
+    private static final int MAX_CELLS_PER_FENCE = 256;
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+    private static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS_METERS);
+
+    private final Map<String, Fence> mFences = new HashMap<>();
+    private final Map<Long, List<Fence>> mCells = new HashMap<>();
+    private final List<Fence> mLarge = new ArrayList<>();
+    private final LinkedHashSet<Fence> mInside = new LinkedHashSet<>();
+
+    /**
+     * Adds the fence described by {@code map}, replacing any fence with the same id. A fence has
+     * an {@code id}, either a {@code latitude}, {@code longitude} and {@code radius} (meters) or
+     * a {@code polygon} of {@code {latitude, longitude}} points, and optionally a
+     * {@code dwellTime} (millis) after which a {@code dwell} transition is reported.
+     *
+     * @throws IllegalArgumentException if the map does not describe a valid fence
+     */
+    synchronized void add(ReadableMap map) {
+        Fence fence = Fence.fromReactMap(map);
+        remove(fence.id);
+        mFences.put(fence.id, fence);
+
+        long cells = (long) (cell(fence.maxLatitude) - cell(fence.minLatitude) + 1)
+                * (cell(fence.maxLongitude) - cell(fence.minLongitude) + 1);
+        if (cells > MAX_CELLS_PER_FENCE) {
+            mLarge.add(fence);
+            return;
+        }
+        for (int latCell = cell(fence.minLatitude); latCell <= cell(fence.maxLatitude); latCell++) {
+            for (int lonCell = cell(fence.minLongitude); lonCell <= cell(fence.maxLongitude); lonCell++) {
+                long key = cellKey(latCell, lonCell);
+                List<Fence> fences = mCells.get(key);
+                if (fences == null) {
+                    fences = new ArrayList<>(2);
+                    mCells.put(key, fences);
+                }
+                fences.add(fence);
+            }
+        }
+    }
+
+    /**
+     * Removes the fence with the given id, without reporting an exit.
+     */
+    synchronized void remove(String id) {
+        Fence fence = mFences.remove(id);
+        if (fence == null) {
+            return;
+        }
+        mInside.remove(fence);
+        if (mLarge.remove(fence)) {
+            return;
+        }
+        for (int latCell = cell(fence.minLatitude); latCell <= cell(fence.maxLatitude); latCell++) {
+            for (int lonCell = cell(fence.minLongitude); lonCell <= cell(fence.maxLongitude); lonCell++) {
+                long key = cellKey(latCell, lonCell);
+                List<Fence> fences = mCells.get(key);
+                if (fences != null && fences.remove(fence) && fences.isEmpty()) {
+                    mCells.remove(key);
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        mFences.clear();
+        mCells.clear();
+        mLarge.clear();
+        mInside.clear();
+    }
+
+    synchronized boolean isEmpty() {
+        return mFences.isEmpty();
+    }
+
+    /**
+     * Reports the transitions the fix causes to {@code listener}.
+     */
+    synchronized void update(Location location, Listener listener) {
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        long time = location.getTime();
+
+        Iterator<Fence> inside = mInside.iterator();
+        while (inside.hasNext()) {
+            Fence fence = inside.next();
+            if (!fence.contains(latitude, longitude)) {
+                inside.remove();
+                listener.onTransition(fence.id, TRANSITION_EXIT, location);
+            } else if (!fence.dwelled && fence.dwellTime >= 0 && time - fence.enteredAt >= fence.dwellTime) {
+                fence.dwelled = true;
+                listener.onTransition(fence.id, TRANSITION_DWELL, location);
+            }
+        }
+
+        List<Fence> candidates = mCells.get(cellKey(cell(latitude), cell(longitude)));
+        if (candidates != null) {
+            enter(candidates, location, listener);
+        }
+        enter(mLarge, location, listener);
+    }
+
+    private void enter(List<Fence> candidates, Location location, Listener listener) {
+        for (int i = 0; i < candidates.size(); i++) {
+            Fence fence = candidates.get(i);
+            if (mInside.contains(fence) || !fence.contains(location.getLatitude(), location.getLongitude())) {
+                continue;
+            }
+            mInside.add(fence);
+            fence.enteredAt = location.getTime();
+            fence.dwelled = false;
+            listener.onTransition(fence.id, TRANSITION_ENTER, location);
+            if (fence.dwellTime == 0) {
+                fence.dwelled = true;
+                listener.onTransition(fence.id, TRANSITION_DWELL, location);
+            }
+        }
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    private abstract static class Fence {
+        final String id;
+        final long dwellTime;
+        double minLatitude;
+        double maxLatitude;
+        double minLongitude;
+        double maxLongitude;
+        long enteredAt;
+        boolean dwelled;
+
+        Fence(String id, long dwellTime) {
+            this.id = id;
+            this.dwellTime = dwellTime;
+        }
+
+        abstract boolean contains(double latitude, double longitude);
+
+        static Fence fromReactMap(ReadableMap map) {
+            if (!map.hasKey("id")) {
+                throw new IllegalArgumentException("Geofence without id");
+            }
+            String id = map.getString("id");
+            long dwellTime = map.hasKey("dwellTime") ? (long) map.getDouble("dwellTime") : -1;
+            if (map.hasKey("polygon")) {
+                ReadableArray points = map.getArray("polygon");
+                if (points == null || points.size() < 3) {
+                    throw new IllegalArgumentException("Geofence " + id + " needs at least 3 points");
+                }
+                double[] latitudes = new double[points.size()];
+                double[] longitudes = new double[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    ReadableMap point = points.getMap(i);
+                    latitudes[i] = point.getDouble("latitude");
+                    longitudes[i] = point.getDouble("longitude");
+                }
+                return new Polygon(id, dwellTime, latitudes, longitudes);
+            }
+            if (map.hasKey("latitude") && map.hasKey("longitude") && map.hasKey("radius")) {
+                return new Circle(id, dwellTime,
+                        map.getDouble("latitude"), map.getDouble("longitude"), map.getDouble("radius"));
+            }
+            throw new IllegalArgumentException("Geofence " + id + " needs a radius or a polygon");
+        }
+    }
+
+    private static final class Circle extends Fence {
+        private final double mLatitude;
+        private final double mLongitude;
+        private final double mRadius;
+
+        Circle(String id, long dwellTime, double latitude, double longitude, double radius) {
+            super(id, dwellTime);
+            mLatitude = latitude;
+            mLongitude = longitude;
+            mRadius = radius;
+
+            double latitudeDelta = radius / METERS_PER_DEGREE;
+            double longitudeDelta = latitudeDelta / Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+            minLatitude = latitude - latitudeDelta;
+            maxLatitude = latitude + latitudeDelta;
+            minLongitude = longitude - longitudeDelta;
+            maxLongitude = longitude + longitudeDelta;
+        }
+
+        @Override
+        boolean contains(double latitude, double longitude) {
+            if (latitude < minLatitude || latitude > maxLatitude
+                    || longitude < minLongitude || longitude > maxLongitude) {
+                return false;
+            }
+            // haversine
+            double dLat = Math.toRadians(latitude - mLatitude);
+            double dLon = Math.toRadians(longitude - mLongitude);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(Math.toRadians(mLatitude)) * Math.cos(Math.toRadians(latitude))
+                    * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            double distance = 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+            return distance <= mRadius;
+        }
+    }
+
+    private static final class Polygon extends Fence {
+        private final double[] mLatitudes;
+        private final double[] mLongitudes;
+
+        Polygon(String id, long dwellTime, double[] latitudes, double[] longitudes) {
+            super(id, dwellTime);
+            mLatitudes = latitudes;
+            mLongitudes = longitudes;
+
+            minLatitude = maxLatitude = latitudes[0];
+            minLongitude = maxLongitude = longitudes[0];
+            for (int i = 1; i < latitudes.length; i++) {
+                minLatitude = Math.min(minLatitude, latitudes[i]);
+                maxLatitude = Math.max(maxLatitude, latitudes[i]);
+                minLongitude = Math.min(minLongitude, longitudes[i]);
+                maxLongitude = Math.max(maxLongitude, longitudes[i]);
+            }
+        }
+
+        /**
+         * Even-odd ray casting in plain latitude/longitude, which is exact enough for fences
+         * that do not span the antimeridian or a pole.
+         */
+        @Override
+        boolean contains(double latitude, double longitude) {
+            if (latitude < minLatitude || latitude > maxLatitude
+                    || longitude < minLongitude || longitude > maxLongitude) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = mLatitudes.length - 1; i < mLatitudes.length; j = i++) {
+                if ((mLatitudes[i] > latitude) != (mLatitudes[j] > latitude)
+                        && longitude < (mLongitudes[j] - mLongitudes[i]) * (latitude - mLatitudes[i])
+                        / (mLatitudes[j] - mLatitudes[i]) + mLongitudes[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
@@ -8,34 +8,91 @@
 package com.reactnativecommunity.geolocation;
 
 import android.Manifest;
+import android.location.Location;
 import android.os.Build;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.PromiseImpl;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 import com.facebook.react.modules.permissions.PermissionsModule;
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.GoogleApiAvailability;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.List;
 
-public class GeolocationModule extends ReactContextBaseJavaModule {
+import javax.annotation.Nullable;
+
+public class GeolocationModule extends ReactContextBaseJavaModule implements LifecycleEventListener {
 
   public static final String NAME = "RNCGeolocation";
+  private static volatile boolean sWarmStart;
   private BaseLocationManager mLocationManager;
+  private LocationEngine mEngine;
   private Configuration mConfiguration;
+  private @Nullable TrackRecorder mTrackRecorder;
+  private final GeofenceIndex mGeofences = new GeofenceIndex();
+  /**
+   * Metrics of the location managers of the engines this module switched away from.
+   */
+  private final List<LocationMetrics> mPastMetrics = new ArrayList<>();
+  private final BaseLocationManager.ObservingListener mObservingListener = observing -> updateBackgroundService();
+  private boolean mInBackground;
+  private boolean mServiceRunning;
+  private final Runnable mEmitMetrics = new Runnable() {
+    @Override
+    public void run() {
+      getReactApplicationContext().getJSModule(RCTDeviceEventEmitter.class).emit("geolocationMetrics", metricsToMap());
+      LocationThread.getHandler().postDelayed(this, mConfiguration.metricsInterval);
+    }
+  };
 
   public GeolocationModule(ReactApplicationContext reactContext) {
     super(reactContext);
     mConfiguration = Configuration.getDefault();
-    mLocationManager = new AndroidLocationManager(reactContext);
+    mEngine = LocationEngines.get(LocationEngines.ANDROID);
+    mLocationManager = createLocationManager(mEngine, reactContext, new JavaOnlyMap());
+    mLocationManager.setObservingListener(mObservingListener);
+    reactContext.addLifecycleEventListener(this);
+    if (sWarmStart) {
+      prefetch(mLocationManager);
+    }
+  }
+
+  /**
+   * Makes the module fetch the last known locations, along with permission and provider state,
+   * in the background as soon as it is created, and again whenever it switches location engines,
+   * so that the first {@code getCurrentPosition} can be answered from memory. Call it before the
+   * React instance is created, e.g. in {@code Application.onCreate}.
+   */
+  public static void setWarmStartEnabled(boolean enabled) {
+    sWarmStart = enabled;
+  }
+
+  private BaseLocationManager createLocationManager(LocationEngine engine, ReactApplicationContext reactContext, ReadableMap config) {
+    BaseLocationManager locationManager = engine.create(reactContext, config);
+    locationManager.setProviderBatching((engine.getCapabilities() & LocationEngine.CAPABILITY_PROVIDER_BATCHING) != 0);
+    locationManager.getMetrics().setEnabled(mConfiguration.enableMetrics);
+    return locationManager;
+  }
+
+  private static void prefetch(final BaseLocationManager locationManager) {
+    LocationThread.getHandler().post(new Runnable() {
+      @Override
+      public void run() {
+        locationManager.prefetch();
+      }
+    });
   }
 
   @Override
@@ -45,26 +102,129 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
 
   public void setConfiguration(ReadableMap config) {
     mConfiguration = Configuration.fromReactMap(config);
-    onConfigurationChange(mConfiguration);
+    mLocationManager.stopBuffering();
+    onConfigurationChange(mConfiguration, config);
+    if (mInBackground && mConfiguration.enableBackgroundLocationUpdates) {
+      mLocationManager.startBuffering(BackgroundLocationBuffer.DEFAULT_CAPACITY);
+    }
+    updateBackgroundService();
+
+    mLocationManager.getMetrics().setEnabled(mConfiguration.enableMetrics);
+    SpatialEncoder.getInstance().configure(mConfiguration.geohashPrecision, mConfiguration.tileZoom);
+    LocationThread.getHandler().removeCallbacks(mEmitMetrics);
+    if (mConfiguration.enableMetrics && mConfiguration.metricsInterval > 0) {
+      LocationThread.getHandler().postDelayed(mEmitMetrics, mConfiguration.metricsInterval);
+    }
   }
 
-  private void onConfigurationChange(Configuration config) {
+  /**
+   * Switches to the {@link LocationEngine} registered under {@code locationProvider}, if it is
+   * available. Any other value, such as {@code auto}, keeps the current engine. Active watches,
+   * recording and geofencing carry on with the new engine.
+   */
+  private void onConfigurationChange(Configuration config, ReadableMap map) {
     ReactApplicationContext reactContext = mLocationManager.mReactContext;
-    if (Objects.equals(config.locationProvider, "android") && mLocationManager instanceof PlayServicesLocationManager) {
-      mLocationManager = new AndroidLocationManager(reactContext);
-    } else if (Objects.equals(config.locationProvider, "playServices") && mLocationManager instanceof AndroidLocationManager) {
-      GoogleApiAvailability availability = new GoogleApiAvailability();
-      if (availability.isGooglePlayServicesAvailable(reactContext.getApplicationContext()) == ConnectionResult.SUCCESS) {
-        mLocationManager = new PlayServicesLocationManager(reactContext);
+    LocationEngine engine = config.locationProvider != null ? LocationEngines.get(config.locationProvider) : null;
+    if (engine != null && engine != mEngine && engine.isAvailable(reactContext)) {
+      BaseLocationManager previous = mLocationManager;
+      previous.setObservingListener(null);
+      mPastMetrics.add(previous.getMetrics());
+      mEngine = engine;
+      mLocationManager = createLocationManager(engine, reactContext, map);
+      mLocationManager.getMetrics().increment(LocationMetrics.PROVIDER_SWITCHES);
+      try {
+        previous.handOver(mLocationManager);
+      } catch (SecurityException e) {
+        // e.g. watches started with the replay engine, which needs no permission
+        emitLocationPermissionMissing(e);
+      }
+      mLocationManager.setObservingListener(mObservingListener);
+      if (sWarmStart) {
+        prefetch(mLocationManager);
       }
     }
   }
 
+  /**
+   * Permissions are not requested when configured so, or when the engine does not use the
+   * device's location.
+   */
+  private boolean skipsPermissionRequests() {
+    return mConfiguration.skipPermissionRequests
+            || (mEngine.getCapabilities() & LocationEngine.CAPABILITY_LIVE) == 0;
+  }
+
+  /**
+   * With {@code enableBackgroundLocationUpdates}, watched locations are held back natively while
+   * the app is in the background and delivered as one {@code geolocationBatchDidChange} event
+   * when it comes back.
+   */
+  @Override
+  public void onHostPause() {
+    mInBackground = true;
+    if (mConfiguration.enableBackgroundLocationUpdates) {
+      mLocationManager.startBuffering(BackgroundLocationBuffer.DEFAULT_CAPACITY);
+    }
+  }
+
+  @Override
+  public void onHostResume() {
+    // the user may have granted a permission in the settings meanwhile
+    ProviderStateCache.getInstance().invalidatePermissions();
+    mInBackground = false;
+    mLocationManager.stopBuffering();
+  }
+
+  @Override
+  public void onHostDestroy() {
+    // the activity is gone but the process, and the provider registration, may live on
+  }
+
+  @Override
+  public synchronized void invalidate() {
+    getReactApplicationContext().removeLifecycleEventListener(this);
+    LocationThread.getHandler().removeCallbacks(mEmitMetrics);
+    mLocationManager.setObservingListener(null);
+    if (mServiceRunning) {
+      mServiceRunning = false;
+      GeolocationService.stop(getReactApplicationContext());
+    }
+  }
+
+  /**
+   * Runs {@link GeolocationService} while background location updates are enabled and the
+   * provider is registered for anything, so that updates go on at full rate in the background.
+   * A foreground service of type location needs the location permission, which the module may
+   * not have asked for, e.g. with {@code skipPermissionRequests} or the replay engine.
+   */
+  private synchronized void updateBackgroundService() {
+    boolean run = mConfiguration.enableBackgroundLocationUpdates && mLocationManager.isObserving();
+    if (run == mServiceRunning) {
+      return;
+    }
+    if (run && !ProviderStateCache.getInstance().hasLocationPermission(getReactApplicationContext())) {
+      mLocationManager.emitError(PositionError.PERMISSION_DENIED, "Background location updates need the location permission.");
+      return;
+    }
+    mServiceRunning = run;
+    if (run) {
+      GeolocationService.start(getReactApplicationContext());
+    } else {
+      GeolocationService.stop(getReactApplicationContext());
+    }
+  }
+
   /**
    * Requests location permission.
    */
   public void requestAuthorization(final Callback success, final Callback error) {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      // like getAuthorizationStatusSync, only fine location counts as granted: with coarse
+      // location alone the user is still asked for fine location below
+      if (ProviderStateCache.getInstance().hasPermission(getReactApplicationContext(), Manifest.permission.ACCESS_FINE_LOCATION)) {
+        success.invoke();
+        return;
+      }
       final PermissionsModule perms = getReactApplicationContext().getNativeModule(PermissionsModule.class);
       ArrayList<String> permissions = new ArrayList<>();
       permissions.add(Manifest.permission.ACCESS_COARSE_LOCATION);
@@ -72,6 +232,7 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
       ReadableArray permissionsArray = JavaOnlyArray.from(permissions);
 
       final Callback onPermissionGranted = args -> {
+        ProviderStateCache.getInstance().invalidatePermissions();
         WritableNativeMap result = (WritableNativeMap) args[0];
         if (result.getString(Manifest.permission.ACCESS_COARSE_LOCATION).equals("granted")) {
           success.invoke();
@@ -80,7 +241,10 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
         }
       };
 
-      final Callback onPermissionDenied = args -> error.invoke(PositionError.buildError(PositionError.PERMISSION_DENIED, "Failed to request location permission."));
+      final Callback onPermissionDenied = args -> {
+        ProviderStateCache.getInstance().invalidatePermissions();
+        error.invoke(PositionError.buildError(PositionError.PERMISSION_DENIED, "Failed to request location permission."));
+      };
 
       Callback onPermissionCheckFailed = args -> error.invoke(PositionError.buildError(PositionError.PERMISSION_DENIED, "Failed to check location permission."));
 
@@ -114,7 +278,7 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
       final Callback success,
       final Callback error) {
     try {
-      if (mConfiguration.skipPermissionRequests) {
+      if (skipsPermissionRequests()) {
         mLocationManager.getCurrentLocationData(options, success, error);
         return;
       }
@@ -134,7 +298,7 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
    */
   public void startObserving(ReadableMap options) {
     try {
-      if (mConfiguration.skipPermissionRequests) {
+      if (skipsPermissionRequests()) {
         mLocationManager.startObserving(options);
         return;
       }
@@ -147,6 +311,38 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
     }
   }
 
+  /**
+   * Start (or update) the watch with the given id. Location updates are emitted via the
+   * {@link RCTDeviceEventEmitter} as {@code geolocationDidChange} events, listing the watches
+   * they are meant for under {@code watchIds}. Each watch only receives the updates that match
+   * its own interval and distanceFilter.
+   *
+   * @param watchId id of the watch, as returned by {@code watchPosition} in JS
+   * @param options map containing optional arguments: highAccuracy (boolean), interval (millis),
+   *        fastestInterval (millis), distanceFilter (meters)
+   */
+  public void addWatch(final int watchId, final ReadableMap options) {
+    try {
+      if (skipsPermissionRequests()) {
+        mLocationManager.startObserving(watchId, options);
+        return;
+      }
+
+      requestAuthorization(args -> mLocationManager.startObserving(watchId, options), args -> {
+        emitLocationPermissionMissing(new SecurityException(Arrays.toString(args)));
+      });
+    } catch (SecurityException e) {
+      emitLocationPermissionMissing(e);
+    }
+  }
+
+  /**
+   * Stop the watch with the given id. Location updates stop once no watch is left.
+   */
+  public void removeWatch(int watchId) {
+    mLocationManager.stopObserving(watchId);
+  }
+
   /**
    * Stop listening for location updates.
    *
@@ -157,6 +353,208 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
     mLocationManager.stopObserving();
   }
 
+  /**
+   * Start recording every location update to the on-device track log, until
+   * {@link #stopRecording()}. Recording goes on while JS is not listening.
+   *
+   * @param options map containing the same optional arguments as {@link #addWatch}
+   */
+  public void startRecording(final ReadableMap options) {
+    try {
+      if (skipsPermissionRequests()) {
+        startRecordingWithPermission(options);
+        return;
+      }
+
+      requestAuthorization(args -> startRecordingWithPermission(options), args -> {
+        emitLocationPermissionMissing(new SecurityException(Arrays.toString(args)));
+      });
+    } catch (SecurityException e) {
+      emitLocationPermissionMissing(e);
+    }
+  }
+
+  private void startRecordingWithPermission(ReadableMap options) {
+    TrackRecorder recorder = getTrackRecorder();
+    try {
+      recorder.open();
+    } catch (IOException e) {
+      mLocationManager.emitError(PositionError.POSITION_UNAVAILABLE, "Could not open the track log: " + e.getMessage());
+      return;
+    }
+    mLocationManager.startRecording(recorder, options);
+  }
+
+  public void stopRecording() {
+    mLocationManager.stopRecording();
+    getTrackRecorder().close();
+  }
+
+  /**
+   * Start monitoring the given geofences, in addition to those already monitored. Entering,
+   * leaving and dwelling in a fence are emitted via the {@link RCTDeviceEventEmitter} as
+   * {@code geolocationGeofenceTransition} events, whether or not JS is watching the location.
+   *
+   * @param fences  maps containing an id, and either a latitude, longitude and radius (meters) or
+   *                a polygon of latitude/longitude points, and optionally a dwellTime (millis)
+   * @param options map containing the same optional arguments as {@link #addWatch}, for the
+   *                location updates the fences are tested against
+   * @param error   invoked if one of the fences is invalid, in which case none of them is added
+   */
+  public void addGeofences(final ReadableArray fences, final ReadableMap options, final Callback error) {
+    // parsed up front so that an invalid fence does not leave the others half added
+    GeofenceIndex validated = new GeofenceIndex();
+    try {
+      for (int i = 0; i < fences.size(); i++) {
+        validated.add(fences.getMap(i));
+      }
+    } catch (IllegalArgumentException | NullPointerException e) {
+      error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, e.getMessage()));
+      return;
+    }
+
+    try {
+      if (skipsPermissionRequests()) {
+        startGeofencingWithPermission(fences, options);
+        return;
+      }
+
+      requestAuthorization(args -> startGeofencingWithPermission(fences, options), args -> {
+        emitLocationPermissionMissing(new SecurityException(Arrays.toString(args)));
+      });
+    } catch (SecurityException e) {
+      emitLocationPermissionMissing(e);
+    }
+  }
+
+  private void startGeofencingWithPermission(ReadableArray fences, ReadableMap options) {
+    for (int i = 0; i < fences.size(); i++) {
+      mGeofences.add(fences.getMap(i));
+    }
+    mLocationManager.startGeofencing(mGeofences, options);
+  }
+
+  /**
+   * Stop monitoring the geofences with the given ids. Location updates for geofencing stop once
+   * no fence is left.
+   */
+  public void removeGeofences(ReadableArray ids) {
+    for (int i = 0; i < ids.size(); i++) {
+      mGeofences.remove(ids.getString(i));
+    }
+    if (mGeofences.isEmpty()) {
+      mLocationManager.stopGeofencing();
+    }
+  }
+
+  public void clearGeofences() {
+    mGeofences.clear();
+    mLocationManager.stopGeofencing();
+  }
+
+  /**
+   * Read a page of recorded locations.
+   *
+   * @param query map containing optional arguments: from and to (timestamps in millis), cursor
+   *        (as returned with the previous page) and limit (number of locations, 1000 by default)
+   */
+  public void readTrack(ReadableMap query, final Callback success, final Callback error) {
+    double from = query.hasKey("from") ? query.getDouble("from") : 0;
+    double to = query.hasKey("to") ? query.getDouble("to") : Double.MAX_VALUE;
+    long cursor = query.hasKey("cursor") ? (long) query.getDouble("cursor") : 0;
+    int limit = query.hasKey("limit") ? Math.max(1, query.getInt("limit")) : 1000;
+    try {
+      success.invoke(getTrackRecorder().read(from, to, cursor, limit));
+    } catch (IOException e) {
+      error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Could not read the track log: " + e.getMessage()));
+    }
+  }
+
+  /**
+   * Export recorded locations in bulk, packed column by column into one base64 encoded buffer of
+   * little-endian doubles: latitude, longitude, altitude, accuracy, heading, speed and timestamp,
+   * {@code count} values each.
+   *
+   * @param query same as for {@link #readTrack}, with a limit of 100000 locations by default
+   */
+  public void exportTrack(ReadableMap query, final Callback success, final Callback error) {
+    double from = query.hasKey("from") ? query.getDouble("from") : 0;
+    double to = query.hasKey("to") ? query.getDouble("to") : Double.MAX_VALUE;
+    long cursor = query.hasKey("cursor") ? (long) query.getDouble("cursor") : 0;
+    int limit = query.hasKey("limit") ? Math.max(1, query.getInt("limit")) : 100000;
+    try {
+      success.invoke(getTrackRecorder().export(from, to, cursor, limit));
+    } catch (IOException e) {
+      error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Could not read the track log: " + e.getMessage()));
+    }
+  }
+
+  private synchronized TrackRecorder getTrackRecorder() {
+    if (mTrackRecorder == null) {
+      mTrackRecorder = new TrackRecorder(new File(getReactApplicationContext().getFilesDir(), "RNCGeolocation/track"));
+    }
+    return mTrackRecorder;
+  }
+
+  /**
+   * Reports from the permission cache whether locations may be used: {@code granted} with the
+   * fine location permission, {@code approximate} with only the coarse one, {@code denied}
+   * otherwise. Synchronous, so that JS can skip asking for permissions it already has.
+   */
+  public String getAuthorizationStatusSync() {
+    ProviderStateCache states = ProviderStateCache.getInstance();
+    ReactApplicationContext context = getReactApplicationContext();
+    if (states.hasPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)) {
+      return "granted";
+    }
+    return states.hasPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) ? "approximate" : "denied";
+  }
+
+  /**
+   * Get the most recent location the module has seen, from any source, without waiting. Meant for
+   * code that needs a position on every frame and can live with it being stale.
+   *
+   * @return the location in the same format as {@code getCurrentPosition}, or null if there is
+   * none yet
+   */
+  public @Nullable WritableMap getLastKnownPositionSync() {
+    Location location = LastLocationCache.getInstance().getMostRecent();
+    return location != null ? BaseLocationManager.locationToMap(location, false) : null;
+  }
+
+  /**
+   * Reports how often {@code getCurrentPosition} was answered from the in-memory location cache:
+   * {@code hits}, {@code misses} and the number of cached fixes ({@code size}).
+   */
+  public void getLocationCacheStats(final Callback success) {
+    success.invoke(LastLocationCache.getInstance().statsToMap());
+  }
+
+  /**
+   * Reports the pipeline metrics: the current {@code engine} and, once {@code enableMetrics} is
+   * configured, counters of received, filtered and emitted fixes, errors, timeouts, provider
+   * switches and settings check failures along with latency histograms in microseconds, summed
+   * over the managers of every engine this module ran on. {@code providers} holds the {@link ProviderHealth} record of each platform provider single
+   * requests used.
+   */
+  public void getMetrics(final Callback success) {
+    success.invoke(metricsToMap());
+  }
+
+  private WritableMap metricsToMap() {
+    WritableMap map = Arguments.createMap();
+    map.putString("engine", mEngine.getName());
+    LocationMetrics total = new LocationMetrics();
+    total.setEnabled(mConfiguration.enableMetrics);
+    for (LocationMetrics metrics : mPastMetrics) {
+      metrics.addTo(total);
+    }
+    mLocationManager.getMetrics().addTo(total);
+    total.putInto(map);
+    map.putMap("providers", ProviderHealth.getInstance().toMap());
+    return map;
+  }
+
   /**
    * Provides a clearer exception message than the default one.
    */
@@ -172,14 +570,24 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
   private static class Configuration {
     String locationProvider;
     Boolean skipPermissionRequests;
+    boolean enableBackgroundLocationUpdates;
+    boolean enableMetrics;
+    long metricsInterval;
+    int geohashPrecision;
+    int tileZoom;
 
-    private Configuration(String locationProvider, boolean skipPermissionRequests) {
+    private Configuration(String locationProvider, boolean skipPermissionRequests, boolean enableBackgroundLocationUpdates, boolean enableMetrics, long metricsInterval, int geohashPrecision, int tileZoom) {
       this.locationProvider = locationProvider;
       this.skipPermissionRequests = skipPermissionRequests;
+      this.enableBackgroundLocationUpdates = enableBackgroundLocationUpdates;
+      this.enableMetrics = enableMetrics;
+      this.metricsInterval = metricsInterval;
+      this.geohashPrecision = geohashPrecision;
+      this.tileZoom = tileZoom;
     }
 
     protected static Configuration getDefault() {
-      return new Configuration("auto", false);
+      return new Configuration("auto", false, false, false, 0, 0, 0);
     }
 
     protected static Configuration fromReactMap(ReadableMap map) {
@@ -187,7 +595,17 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
               map.hasKey("locationProvider") ? map.getString("locationProvider") : "auto";
       boolean skipPermissionRequests =
               map.hasKey("skipPermissionRequests") ? map.getBoolean("skipPermissionRequests") : false;
-      return new Configuration(locationProvider, skipPermissionRequests);
+      boolean enableBackgroundLocationUpdates =
+              map.hasKey("enableBackgroundLocationUpdates") && map.getBoolean("enableBackgroundLocationUpdates");
+      boolean enableMetrics =
+              map.hasKey("enableMetrics") && map.getBoolean("enableMetrics");
+      long metricsInterval =
+              map.hasKey("metricsInterval") ? (long) map.getDouble("metricsInterval") : 0;
+      int geohashPrecision =
+              map.hasKey("geohashPrecision") ? map.getInt("geohashPrecision") : 0;
+      int tileZoom =
+              map.hasKey("tileZoom") ? map.getInt("tileZoom") : 0;
+      return new Configuration(locationProvider, skipPermissionRequests, enableBackgroundLocationUpdates, enableMetrics, metricsInterval, geohashPrecision, tileZoom);
     }
   }
 }
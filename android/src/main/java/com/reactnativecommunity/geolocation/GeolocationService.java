@@ -0,0 +1,97 @@
+package com.reactnativecommunity.geolocation;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.IBinder;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+
+import javax.annotation.Nullable;
+
+/**
+ * Foreground service that keeps the app process, and with it the provider registration, running
+ * at full rate while the app is in the background. It does no work of its own: fixes keep going
+ * to the location manager, which holds them back for JS in the meantime.
+ */
+public class GeolocationService extends Service {
+    private static final String CHANNEL_ID = "RNCGeolocation";
+    private static final int NOTIFICATION_ID = 4721;
+
+    static void start(Context context) {
+        if (!isDeclared(context)) {
+            FLog.w(ReactConstants.TAG, "LocationModule: Add GeolocationService to the app's AndroidManifest.xml to keep location updates going in the background");
+            return;
+        }
+        try {
+            ContextCompat.startForegroundService(context, new Intent(context, GeolocationService.class));
+        } catch (RuntimeException e) {
+            // e.g. not allowed to start a foreground service from the background on API 31+
+            FLog.w(ReactConstants.TAG, "LocationModule: Could not start the background location service", e);
+        }
+    }
+
+    /**
+     * The service is opt-in: the library manifest does not declare it, the app's does.
+     */
+    private static boolean isDeclared(Context context) {
+        try {
+            context.getPackageManager().getServiceInfo(new ComponentName(context, GeolocationService.class), 0);
+            return true;
+        } catch (PackageManager.NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    static void stop(Context context) {
+        context.stopService(new Intent(context, GeolocationService.class));
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        Notification notification = buildNotification();
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+            } else {
+                startForeground(NOTIFICATION_ID, notification);
+            }
+        } catch (RuntimeException e) {
+            // e.g. the location permission was revoked meanwhile, which API 34+ enforces here
+            FLog.w(ReactConstants.TAG, "LocationModule: Could not run the background location service", e);
+            stopSelf();
+        }
+        // restarting without the module would only show the notification
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public @Nullable IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private Notification buildNotification() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                    CHANNEL_ID, "Location updates", NotificationManager.IMPORTANCE_LOW);
+            getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setContentTitle(getApplicationInfo().loadLabel(getPackageManager()))
+                .setContentText("Using your location in the background")
+                .setSmallIcon(getApplicationInfo().icon)
+                .setOngoing(true)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.reactnativecommunity.geolocation;
+
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Reads the points of a GPX file ({@code trkpt}, {@code rtept} and {@code wpt}) into
+ * {@link LocationSerializer} packed fields. Points without a time are spaced one second apart.
+ * GPX has no accuracy, so it is left at 0.
+ */
+final class GpxTrackReader {
+    private static final long UNTIMED_SPACING_MS = 1000;
+
+    private GpxTrackReader() {
+    }
+
+    static double[] read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setInput(in, null);
+            return read(parser);
+        } catch (XmlPullParserException e) {
+            throw new IOException("Invalid GPX: " + e.getMessage(), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static double[] read(XmlPullParser parser) throws IOException, XmlPullParserException {
+        double[] values = new double[LocationSerializer.FIELD_COUNT * 1024];
+        int count = 0;
+        double[] point = null;
+        String element = null;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = parser.getName();
+                if ("trkpt".equals(name) || "rtept".equals(name) || "wpt".equals(name)) {
+                    point = new double[LocationSerializer.FIELD_COUNT];
+                    point[LocationSerializer.LATITUDE] = parseDouble(parser.getAttributeValue(null, "lat"));
+                    point[LocationSerializer.LONGITUDE] = parseDouble(parser.getAttributeValue(null, "lon"));
+                    point[LocationSerializer.TIMESTAMP] = Double.NaN;
+                }
+                element = name;
+            } else if (event == XmlPullParser.TEXT && point != null && element != null) {
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                if ("ele".equals(element)) {
+                    point[LocationSerializer.ALTITUDE] = parseDouble(text);
+                } else if ("time".equals(element)) {
+                    point[LocationSerializer.TIMESTAMP] = parseTime(format, text);
+                } else if ("speed".equals(element)) {
+                    point[LocationSerializer.SPEED] = parseDouble(text);
+                } else if ("course".equals(element)) {
+                    point[LocationSerializer.HEADING] = parseDouble(text);
+                }
+            } else if (event == XmlPullParser.END_TAG) {
+                String name = parser.getName();
+                if (point != null && ("trkpt".equals(name) || "rtept".equals(name) || "wpt".equals(name))) {
+                    if (Double.isNaN(point[LocationSerializer.TIMESTAMP])) {
+                        point[LocationSerializer.TIMESTAMP] = count == 0
+                                ? 0
+                                : values[(count - 1) * LocationSerializer.FIELD_COUNT + LocationSerializer.TIMESTAMP] + UNTIMED_SPACING_MS;
+                    }
+                    int offset = count * LocationSerializer.FIELD_COUNT;
+                    if (offset + LocationSerializer.FIELD_COUNT > values.length) {
+                        values = Arrays.copyOf(values, values.length * 2);
+                    }
+                    System.arraycopy(point, 0, values, offset, LocationSerializer.FIELD_COUNT);
+                    count++;
+                    point = null;
+                }
+                element = null;
+            }
+        }
+        return Arrays.copyOf(values, count * LocationSerializer.FIELD_COUNT);
+    }
+
+    private static double parseDouble(String value) throws IOException {
+        try {
+            return Double.parseDouble(value);
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IOException("Invalid GPX number: " + value);
+        }
+    }
+
+    /**
+     * Parses an ISO 8601 UTC time such as {@code 2024-05-01T10:00:00.250Z}.
+     */
+    private static double parseTime(SimpleDateFormat format, String value) throws IOException {
+        try {
+            long time = format.parse(value.substring(0, Math.min(19, value.length()))).getTime();
+            if (value.length() > 20 && value.charAt(19) == '.') {
+                int end = 20;
+                while (end < value.length() && Character.isDigit(value.charAt(end))) {
+                    end++;
+                }
+                time += Math.round(Double.parseDouble("0." + value.substring(20, end)) * 1000);
+            }
+            return time;
+        } catch (ParseException | NumberFormatException e) {
+            throw new IOException("Invalid GPX time: " + value);
+        }
+    }
+}
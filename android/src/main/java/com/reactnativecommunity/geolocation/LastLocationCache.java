@@ -0,0 +1,143 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide cache of the best recent fix per provider and accuracy class. Every fix the module
+ * sees (watches, single requests, last known locations) is offered to it, so that
+ * {@code maximumAge} checks can be answered without asking the system location service.
+ * <p>
+ * The most recent fix is also kept in a slot of its own that is read and written without
+ * locking, for {@code getLastKnownPositionSync} which may be called on every frame.
+ */
+final class LastLocationCache {
+    /**
+     * Fixes at least this accurate are good enough for a high accuracy request.
+     */
+    static final float FINE_ACCURACY_METERS = 50;
+
+    private static final int CLASS_FINE = 0;
+    private static final int CLASS_COARSE = 1;
+
+    private static final LastLocationCache INSTANCE = new LastLocationCache();
+
+    /**
+     * Best fix per provider, indexed by accuracy class.
+     */
+    private final Map<String, Location[]> mLocations = new HashMap<>();
+    private final AtomicReference<Location> mMostRecent = new AtomicReference<>();
+    private long mHits;
+    private long mMisses;
+
+    static LastLocationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Keeps the fix if it is better than the cached one of its provider and accuracy class, and as
+     * the most recent fix if it is newer than that.
+     */
+    void put(@Nullable Location location) {
+        if (location == null) {
+            return;
+        }
+        Location mostRecent;
+        do {
+            mostRecent = mMostRecent.get();
+            if (mostRecent != null && mostRecent.getTime() >= location.getTime()) {
+                break;
+            }
+        } while (!mMostRecent.compareAndSet(mostRecent, location));
+
+        synchronized (this) {
+            putSlot(location);
+        }
+    }
+
+    private void putSlot(Location location) {
+        String provider = location.getProvider() != null ? location.getProvider() : "";
+        Location[] slots = mLocations.get(provider);
+        if (slots == null) {
+            slots = new Location[2];
+            mLocations.put(provider, slots);
+        }
+        int accuracyClass = accuracyClass(location);
+        if (BaseLocationManager.isBetterLocation(location, slots[accuracyClass])) {
+            slots[accuracyClass] = location;
+        }
+    }
+
+    /**
+     * The best cached fix younger than {@code maximumAge} that is accurate enough for
+     * {@code accuracy}, or null. Counts as a hit or a miss.
+     *
+     * @param now current wall clock time, in the same base as {@link Location#getTime()}
+     */
+    @Nullable
+    synchronized Location get(int accuracy, double maximumAge, long now) {
+        Location best = null;
+        for (Location[] slots : mLocations.values()) {
+            for (int accuracyClass = 0; accuracyClass < slots.length; accuracyClass++) {
+                Location location = slots[accuracyClass];
+                if (location == null || (now - location.getTime()) >= maximumAge) {
+                    continue;
+                }
+                if (accuracyClass == CLASS_COARSE
+                        && accuracy == BaseLocationManager.LocationOptions.ACCURACY_HIGH) {
+                    continue;
+                }
+                if (BaseLocationManager.isBetterLocation(location, best)) {
+                    best = location;
+                }
+            }
+        }
+
+        if (best != null) {
+            mHits++;
+        } else {
+            mMisses++;
+        }
+        return best;
+    }
+
+    /**
+     * The newest fix seen from any provider, whatever its accuracy, or null. Does not lock and
+     * does not count as a hit or a miss.
+     */
+    @Nullable
+    Location getMostRecent() {
+        return mMostRecent.get();
+    }
+
+    synchronized WritableMap statsToMap() {
+        int size = 0;
+        for (Location[] slots : mLocations.values()) {
+            for (Location location : slots) {
+                if (location != null) {
+                    size++;
+                }
+            }
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putDouble("hits", mHits);
+        map.putDouble("misses", mMisses);
+        map.putInt("size", size);
+        return map;
+    }
+
+    private static int accuracyClass(Location location) {
+        return location.hasAccuracy() && location.getAccuracy() <= FINE_ACCURACY_METERS
+                ? CLASS_FINE
+                : CLASS_COARSE;
+    }
+}
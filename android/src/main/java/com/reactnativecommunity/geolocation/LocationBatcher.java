@@ -0,0 +1,83 @@
+package com.reactnativecommunity.geolocation;
+
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Buffers serialized fixes and hands them over as a single array, either once
+ * {@code maxBatchSize} fixes are pending or {@code maxBatchDelayMs} after the first
+ * pending fix, whichever comes first.
+ */
+class LocationBatcher {
+    interface Listener {
+        void onBatch(WritableArray batch);
+    }
+
+    private final int mMaxBatchSize;
+    private final long mMaxBatchDelayMs;
+    private final Listener mListener;
+    private final Handler mHandler = LocationThread.getHandler();
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private @Nullable WritableArray mPending;
+    private int mPendingSize;
+
+    LocationBatcher(int maxBatchSize, long maxBatchDelayMs, Listener listener) {
+        mMaxBatchSize = maxBatchSize;
+        mMaxBatchDelayMs = maxBatchDelayMs;
+        mListener = listener;
+    }
+
+    public void add(WritableMap location) {
+        WritableArray batch = null;
+        synchronized (this) {
+            if (mPending == null) {
+                mPending = Arguments.createArray();
+                if (mMaxBatchDelayMs > 0) {
+                    mHandler.postDelayed(mFlushRunnable, mMaxBatchDelayMs);
+                }
+            }
+            mPending.pushMap(location);
+            mPendingSize++;
+
+            if (mPendingSize >= mMaxBatchSize) {
+                batch = takePending();
+            }
+        }
+
+        if (batch != null) {
+            mListener.onBatch(batch);
+        }
+    }
+
+    /**
+     * Delivers whatever is pending right away. Does nothing when the buffer is empty.
+     */
+    public void flush() {
+        WritableArray batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+
+        if (batch != null) {
+            mListener.onBatch(batch);
+        }
+    }
+
+    private @Nullable WritableArray takePending() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        WritableArray batch = mPending;
+        mPending = null;
+        mPendingSize = 0;
+        return batch;
+    }
+}
@@ -0,0 +1,36 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * A source of locations the module can run on, chosen by name with the {@code locationProvider}
+ * configuration and looked up in {@link LocationEngines}. Engines only create the
+ * {@link BaseLocationManager} doing the work, which is the actual engine contract: it implements
+ * {@code requestWatchUpdates} and {@code removeWatchUpdates} to start and stop watched updates,
+ * {@code getCurrentLocationData} for single requests, and records its fixes and errors into its
+ * {@link LocationMetrics}. Those stay on the manager rather than on this interface because watches,
+ * batching, filtering and the background buffer are shared by all engines and live there too.
+ */
+public interface LocationEngine {
+    /**
+     * Locations come from the device, so location permissions are needed.
+     */
+    int CAPABILITY_LIVE = 1;
+    /**
+     * The provider can hold fixes back itself for {@code maxBatchDelayMs}, saving wakeups. Without
+     * it, batched watches are only batched before they are sent to JS.
+     */
+    int CAPABILITY_PROVIDER_BATCHING = 1 << 1;
+
+    String getName();
+
+    int getCapabilities();
+
+    boolean isAvailable(ReactApplicationContext context);
+
+    /**
+     * @param config the module configuration, for engine specific options
+     */
+    BaseLocationManager create(ReactApplicationContext context, ReadableMap config);
+}
@@ -0,0 +1,106 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.GoogleApiAvailability;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Registry of the {@link LocationEngine}s by name. The built-in engines are {@code android}
+ * (the platform's LocationManager), {@code playServices} (the fused provider) and
+ * {@code replay} (a recorded track, see {@link ReplayLocationManager}). Apps can register their
+ * own before the module is configured.
+ */
+public final class LocationEngines {
+    public static final String ANDROID = "android";
+    public static final String PLAY_SERVICES = "playServices";
+    public static final String REPLAY = "replay";
+
+    private static final Map<String, LocationEngine> sEngines = new LinkedHashMap<>();
+
+    static {
+        register(new LocationEngine() {
+            @Override
+            public String getName() {
+                return ANDROID;
+            }
+
+            @Override
+            public int getCapabilities() {
+                return CAPABILITY_LIVE | CAPABILITY_PROVIDER_BATCHING;
+            }
+
+            @Override
+            public boolean isAvailable(ReactApplicationContext context) {
+                return true;
+            }
+
+            @Override
+            public BaseLocationManager create(ReactApplicationContext context, ReadableMap config) {
+                return new AndroidLocationManager(context);
+            }
+        });
+        register(new LocationEngine() {
+            @Override
+            public String getName() {
+                return PLAY_SERVICES;
+            }
+
+            @Override
+            public int getCapabilities() {
+                return CAPABILITY_LIVE | CAPABILITY_PROVIDER_BATCHING;
+            }
+
+            @Override
+            public boolean isAvailable(ReactApplicationContext context) {
+                GoogleApiAvailability availability = new GoogleApiAvailability();
+                return availability.isGooglePlayServicesAvailable(context.getApplicationContext()) == ConnectionResult.SUCCESS;
+            }
+
+            @Override
+            public BaseLocationManager create(ReactApplicationContext context, ReadableMap config) {
+                return new PlayServicesLocationManager(context);
+            }
+        });
+        register(new LocationEngine() {
+            @Override
+            public String getName() {
+                return REPLAY;
+            }
+
+            @Override
+            public int getCapabilities() {
+                return 0;
+            }
+
+            @Override
+            public boolean isAvailable(ReactApplicationContext context) {
+                return true;
+            }
+
+            @Override
+            public BaseLocationManager create(ReactApplicationContext context, ReadableMap config) {
+                return ReplayLocationManager.fromConfig(context, config);
+            }
+        });
+    }
+
+    private LocationEngines() {
+    }
+
+    /**
+     * Adds an engine, replacing any engine of the same name.
+     */
+    public static synchronized void register(LocationEngine engine) {
+        sEngines.put(engine.getName(), engine);
+    }
+
+    public static synchronized @Nullable LocationEngine get(String name) {
+        return sEngines.get(name);
+    }
+}
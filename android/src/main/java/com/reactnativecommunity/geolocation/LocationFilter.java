@@ -0,0 +1,191 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import javax.annotation.Nullable;
+
+/**
+ * Per-watch filter stage between the provider and serialization. A fix goes through, in order:
+ * <ol>
+ *     <li>an accuracy gate dropping fixes less accurate than {@code maxAccuracy},</li>
+ *     <li>an outlier check dropping fixes that imply a speed above {@code maxSpeed},</li>
+ *     <li>an optional constant-velocity Kalman smoother ({@code smoothing}),</li>
+ *     <li>a dead-band dropping fixes closer than {@code fastestInterval}/{@code interval} in time
+ *     or {@code distanceFilter} in space to the last delivered one.</li>
+ * </ol>
+ * Only what comes out of the last stage is serialized and sent to JS.
+ */
+class LocationFilter {
+    /**
+     * Fraction of a watch's interval a fix may arrive early and still be delivered, so that
+     * provider jitter does not make a watch skip every other fix.
+     */
+    private static final double INTERVAL_TOLERANCE = 0.9;
+    /**
+     * After this many fixes in a row were rejected as outliers, the device most likely did move
+     * that fast (or the reference fix was the outlier), so the next one is accepted.
+     */
+    private static final int MAX_CONSECUTIVE_OUTLIERS = 3;
+
+    private final BaseLocationManager.LocationOptions mOptions;
+    private final long mMinSpacingMs;
+    private final @Nullable KalmanSmoother mSmoother;
+    private @Nullable Location mLastAccepted;
+    private @Nullable Location mLastDelivered;
+    private int mConsecutiveOutliers;
+
+    LocationFilter(BaseLocationManager.LocationOptions options) {
+        mOptions = options;
+        mMinSpacingMs = (long) (options.effectiveFastestInterval() * INTERVAL_TOLERANCE);
+        mSmoother = options.smoothing ? new KalmanSmoother() : null;
+    }
+
+    /**
+     * @return the fix to deliver, which is {@code location} itself unless it was smoothed, or
+     * null if it should be dropped
+     */
+    @Nullable
+    Location process(Location location) {
+        if (location.hasAccuracy() && location.getAccuracy() > mOptions.maxAccuracy) {
+            return null;
+        }
+        if (isOutlier(location)) {
+            return null;
+        }
+        mLastAccepted = location;
+
+        Location filtered = mSmoother != null ? mSmoother.update(location) : location;
+
+        Location last = mLastDelivered;
+        if (last != null) {
+            if (filtered.getTime() - last.getTime() < mMinSpacingMs) {
+                return null;
+            }
+            if (mOptions.distanceFilter > 0 && last.distanceTo(filtered) < mOptions.distanceFilter) {
+                return null;
+            }
+        }
+        mLastDelivered = filtered;
+        return filtered;
+    }
+
+    private boolean isOutlier(Location location) {
+        Location last = mLastAccepted;
+        if (last == null || Float.isInfinite(mOptions.maxSpeed)) {
+            return false;
+        }
+        long elapsedMs = location.getTime() - last.getTime();
+        // the part of the displacement that the two fixes' own uncertainty cannot explain
+        double distance = last.distanceTo(location)
+                - (last.hasAccuracy() ? last.getAccuracy() : 0)
+                - (location.hasAccuracy() ? location.getAccuracy() : 0);
+        boolean outlier = elapsedMs <= 0
+                ? distance > 0
+                : distance / (elapsedMs / 1000.0) > mOptions.maxSpeed;
+        if (!outlier || ++mConsecutiveOutliers > MAX_CONSECUTIVE_OUTLIERS) {
+            if (outlier && mSmoother != null) {
+                mSmoother.reset();
+            }
+            mConsecutiveOutliers = 0;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Constant-velocity Kalman filter, run independently on the east and north axes of a local
+     * plane around the first fix. The measurement noise comes from each fix's own accuracy.
+     */
+    static final class KalmanSmoother {
+        private static final double EARTH_RADIUS_METERS = 6371008.8;
+        /**
+         * Expected acceleration noise in m/s^2, roughly that of a pedestrian or a car in traffic.
+         */
+        private static final double ACCELERATION_NOISE = 1.0;
+        private static final float DEFAULT_ACCURACY_METERS = 30;
+
+        private final Axis mEast = new Axis();
+        private final Axis mNorth = new Axis();
+        private double mOriginLatitude;
+        private double mOriginLongitude;
+        private double mMetersPerDegreeLongitude;
+        private long mLastTime;
+        private boolean mInitialized;
+
+        void reset() {
+            mInitialized = false;
+        }
+
+        Location update(Location location) {
+            double accuracy = location.hasAccuracy() && location.getAccuracy() > 0
+                    ? location.getAccuracy()
+                    : DEFAULT_ACCURACY_METERS;
+            double variance = accuracy * accuracy;
+
+            if (!mInitialized) {
+                mOriginLatitude = location.getLatitude();
+                mOriginLongitude = location.getLongitude();
+                mMetersPerDegreeLongitude =
+                        Math.toRadians(EARTH_RADIUS_METERS) * Math.cos(Math.toRadians(mOriginLatitude));
+                mEast.reset(0, variance);
+                mNorth.reset(0, variance);
+                mLastTime = location.getTime();
+                mInitialized = true;
+                return location;
+            }
+
+            double dt = Math.max(0, (location.getTime() - mLastTime) / 1000.0);
+            mLastTime = Math.max(mLastTime, location.getTime());
+            double east = (location.getLongitude() - mOriginLongitude) * mMetersPerDegreeLongitude;
+            double north = (location.getLatitude() - mOriginLatitude) * Math.toRadians(EARTH_RADIUS_METERS);
+            mEast.update(east, variance, dt);
+            mNorth.update(north, variance, dt);
+
+            Location smoothed = new Location(location);
+            smoothed.setLongitude(mOriginLongitude + mEast.position / mMetersPerDegreeLongitude);
+            smoothed.setLatitude(mOriginLatitude + mNorth.position / Math.toRadians(EARTH_RADIUS_METERS));
+            smoothed.setAccuracy((float) Math.sqrt(Math.max(mEast.p00, mNorth.p00)));
+            return smoothed;
+        }
+
+        /**
+         * State (position, velocity) and its covariance along one axis.
+         */
+        private static final class Axis {
+            double position;
+            double velocity;
+            double p00;
+            double p01;
+            double p11;
+
+            void reset(double position, double variance) {
+                this.position = position;
+                this.velocity = 0;
+                p00 = variance;
+                p01 = 0;
+                p11 = variance;
+            }
+
+            void update(double measurement, double variance, double dt) {
+                // predict
+                position += velocity * dt;
+                double q = ACCELERATION_NOISE * ACCELERATION_NOISE;
+                double dt2 = dt * dt;
+                double np00 = p00 + dt * (2 * p01 + dt * p11) + q * dt2 * dt2 / 4;
+                double np01 = p01 + dt * p11 + q * dt2 * dt / 2;
+                double np11 = p11 + q * dt2;
+
+                // correct
+                double s = np00 + variance;
+                double k0 = np00 / s;
+                double k1 = np01 / s;
+                double innovation = measurement - position;
+                position += k0 * innovation;
+                velocity += k1 * innovation;
+                p00 = (1 - k0) * np00;
+                p01 = (1 - k0) * np01;
+                p11 = np11 - k1 * np01;
+            }
+        }
+    }
+}
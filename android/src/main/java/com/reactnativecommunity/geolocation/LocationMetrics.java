@@ -0,0 +1,184 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms of the location pipeline of one location manager, see
+ * {@link BaseLocationManager#getMetrics()}. Recording is off until {@link #setEnabled(boolean)};
+ * until then every call site only reads one volatile flag.
+ */
+class LocationMetrics {
+    /**
+     * Fixes a watch's filter dropped, counted once per watch.
+     */
+    static final int FIXES_FILTERED = 0;
+    /**
+     * Payloads handed to JS, or held back for it.
+     */
+    static final int FIXES_EMITTED = 1;
+    static final int SINGLE_TIMEOUTS = 2;
+    static final int PROVIDER_SWITCHES = 3;
+    static final int SETTINGS_CHECK_FAILURES = 4;
+    /**
+     * Watched fixes the provider delivered.
+     */
+    static final int FIXES_RECEIVED = 5;
+    /**
+     * Errors emitted to JS.
+     */
+    static final int ERRORS = 6;
+    private static final String[] COUNTER_NAMES = {
+            "fixesFiltered",
+            "fixesEmitted",
+            "timeouts",
+            "providerSwitches",
+            "settingsCheckFailures",
+            "fixesReceived",
+            "errors",
+    };
+
+    /**
+     * From the fix's elapsed realtime to the end of its delivery, in microseconds.
+     */
+    static final int PROVIDER_TO_EMIT_US = 0;
+    static final int LOCATION_TO_MAP_US = 1;
+    /**
+     * From a {@code getCurrentPosition} call to its fix, in microseconds.
+     */
+    static final int TIME_TO_FIRST_FIX_US = 2;
+    private static final String[] HISTOGRAM_NAMES = {
+            "providerToEmitUs",
+            "locationToMapUs",
+            "timeToFirstFixUs",
+    };
+
+    /**
+     * Counts of values by bit length, i.e. bucket {@code i} holds values in
+     * {@code [2^(i-1), 2^i)}, which is precise enough for percentiles of latencies.
+     */
+    private static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(long value) {
+            value = Math.max(0, value);
+            mBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            mCount.incrementAndGet();
+            mSum.addAndGet(value);
+            long max;
+            while (value > (max = mMax.get()) && !mMax.compareAndSet(max, value)) {
+                // retry
+            }
+        }
+
+        /**
+         * The upper bound of the bucket holding the given fraction of values, at most the maximum.
+         */
+        private long percentile(long count, double fraction) {
+            long rank = (long) Math.ceil(count * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, mMax.get());
+                }
+            }
+            return mMax.get();
+        }
+
+        WritableMap toMap() {
+            long count = mCount.get();
+            WritableMap map = Arguments.createMap();
+            map.putDouble("count", count);
+            map.putDouble("mean", count > 0 ? (double) mSum.get() / count : 0);
+            map.putDouble("p50", count > 0 ? percentile(count, 0.5) : 0);
+            map.putDouble("p90", count > 0 ? percentile(count, 0.9) : 0);
+            map.putDouble("p99", count > 0 ? percentile(count, 0.99) : 0);
+            map.putDouble("max", mMax.get());
+            return map;
+        }
+
+        void addTo(Histogram total) {
+            for (int i = 0; i < BUCKETS; i++) {
+                total.mBuckets.addAndGet(i, mBuckets.get(i));
+            }
+            total.mCount.addAndGet(mCount.get());
+            total.mSum.addAndGet(mSum.get());
+            long max = mMax.get();
+            long totalMax;
+            while (max > (totalMax = total.mMax.get()) && !total.mMax.compareAndSet(totalMax, max)) {
+                // retry
+            }
+        }
+    }
+
+    private volatile boolean mEnabled;
+    private final AtomicLongArray mCounters = new AtomicLongArray(COUNTER_NAMES.length);
+    private final Histogram[] mHistograms = new Histogram[HISTOGRAM_NAMES.length];
+
+    LocationMetrics() {
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new Histogram();
+        }
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    void increment(int counter) {
+        if (mEnabled) {
+            mCounters.incrementAndGet(counter);
+        }
+    }
+
+    void add(int counter, long delta) {
+        if (mEnabled) {
+            mCounters.addAndGet(counter, delta);
+        }
+    }
+
+    void record(int histogram, long value) {
+        if (mEnabled) {
+            mHistograms[histogram].record(value);
+        }
+    }
+
+    /**
+     * Adds what was recorded so far to {@code total}, e.g. to report the metrics of several
+     * location managers together.
+     */
+    void addTo(LocationMetrics total) {
+        for (int i = 0; i < COUNTER_NAMES.length; i++) {
+            total.mCounters.addAndGet(i, mCounters.get(i));
+        }
+        for (int i = 0; i < HISTOGRAM_NAMES.length; i++) {
+            mHistograms[i].addTo(total.mHistograms[i]);
+        }
+    }
+
+    /**
+     * Adds the counters and histograms, by name, to {@code map}.
+     */
+    void putInto(WritableMap map) {
+        map.putBoolean("enabled", mEnabled);
+        for (int i = 0; i < COUNTER_NAMES.length; i++) {
+            map.putDouble(COUNTER_NAMES[i], mCounters.get(i));
+        }
+        for (int i = 0; i < HISTOGRAM_NAMES.length; i++) {
+            map.putMap(HISTOGRAM_NAMES[i], mHistograms[i].toMap());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Turns {@link Location} fixes into the payload handed to JS. This runs once for every fix of
+ * every watch, so it sticks to primitive getters and only walks the extras bundle (which boxes
+ * every value) when the caller asked for it.
+ */
+final class LocationSerializer {
+    static final String KEY_COORDS = "coords";
+    static final String KEY_LATITUDE = "latitude";
+    static final String KEY_LONGITUDE = "longitude";
+    static final String KEY_ALTITUDE = "altitude";
+    static final String KEY_ACCURACY = "accuracy";
+    static final String KEY_HEADING = "heading";
+    static final String KEY_SPEED = "speed";
+    static final String KEY_TIMESTAMP = "timestamp";
+    static final String KEY_EXTRAS = "extras";
+    static final String KEY_MOCKED = "mocked";
+    static final String KEY_WATCH_IDS = "watchIds";
+
+    /**
+     * Field offsets of the packed form written by {@link #write(Location, double[], int)}.
+     */
+    static final int LATITUDE = 0;
+    static final int LONGITUDE = 1;
+    static final int ALTITUDE = 2;
+    static final int ACCURACY = 3;
+    static final int HEADING = 4;
+    static final int SPEED = 5;
+    static final int TIMESTAMP = 6;
+    static final int MOCKED = 7;
+    static final int FIELD_COUNT = 8;
+
+    private static final boolean HAS_MOCK_FLAG =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private LocationSerializer() {
+    }
+
+    static WritableMap toMap(Location location, boolean includeExtras) {
+        WritableMap coords = Arguments.createMap();
+        coords.putDouble(KEY_LATITUDE, location.getLatitude());
+        coords.putDouble(KEY_LONGITUDE, location.getLongitude());
+        coords.putDouble(KEY_ALTITUDE, location.getAltitude());
+        coords.putDouble(KEY_ACCURACY, location.getAccuracy());
+        coords.putDouble(KEY_HEADING, location.getBearing());
+        coords.putDouble(KEY_SPEED, location.getSpeed());
+
+        WritableMap map = Arguments.createMap();
+        map.putMap(KEY_COORDS, coords);
+        map.putDouble(KEY_TIMESTAMP, location.getTime());
+
+        if (includeExtras) {
+            Bundle bundle = location.getExtras();
+            if (bundle != null) {
+                WritableMap extras = Arguments.createMap();
+                for (String key : bundle.keySet()) {
+                    BaseLocationManager.putIntoMap(extras, key, bundle.get(key));
+                }
+                map.putMap(KEY_EXTRAS, extras);
+            }
+        }
+
+        if (HAS_MOCK_FLAG) {
+            map.putBoolean(KEY_MOCKED, location.isFromMockProvider());
+        }
+        SpatialEncoder.getInstance().putInto(map, location.getLatitude(), location.getLongitude());
+
+        return map;
+    }
+
+    /**
+     * Writes the fix into {@code out} starting at {@code offset}, using the field offsets above.
+     * {@code out} must have room for {@link #FIELD_COUNT} values. Nothing is allocated, so callers
+     * that keep fixes natively can reuse one buffer for any number of them.
+     */
+    static void write(Location location, double[] out, int offset) {
+        out[offset + LATITUDE] = location.getLatitude();
+        out[offset + LONGITUDE] = location.getLongitude();
+        out[offset + ALTITUDE] = location.getAltitude();
+        out[offset + ACCURACY] = location.getAccuracy();
+        out[offset + HEADING] = location.getBearing();
+        out[offset + SPEED] = location.getSpeed();
+        out[offset + TIMESTAMP] = location.getTime();
+        out[offset + MOCKED] = HAS_MOCK_FLAG && location.isFromMockProvider() ? 1 : 0;
+    }
+
+    /**
+     * Builds the regular JS payload from a fix packed by {@link #write(Location, double[], int)}.
+     */
+    static WritableMap toMap(double[] packed, int offset) {
+        WritableMap coords = Arguments.createMap();
+        coords.putDouble(KEY_LATITUDE, packed[offset + LATITUDE]);
+        coords.putDouble(KEY_LONGITUDE, packed[offset + LONGITUDE]);
+        coords.putDouble(KEY_ALTITUDE, packed[offset + ALTITUDE]);
+        coords.putDouble(KEY_ACCURACY, packed[offset + ACCURACY]);
+        coords.putDouble(KEY_HEADING, packed[offset + HEADING]);
+        coords.putDouble(KEY_SPEED, packed[offset + SPEED]);
+
+        WritableMap map = Arguments.createMap();
+        map.putMap(KEY_COORDS, coords);
+        map.putDouble(KEY_TIMESTAMP, packed[offset + TIMESTAMP]);
+        if (HAS_MOCK_FLAG) {
+            map.putBoolean(KEY_MOCKED, packed[offset + MOCKED] != 0);
+        }
+
+        return map;
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactnativecommunity.geolocation;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
+
+/**
+ * The thread all location work runs on: provider callbacks, filtering, routing and serialization
+ * of fixes, single request timeouts and batch flushes. None of it needs the UI, so it is kept off
+ * the main looper where it would compete with rendering. Started on first use and shared by all
+ * module instances.
+ */
+final class LocationThread {
+    private static final String NAME = "RNCGeolocation";
+    private static final Executor EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            getHandler().post(command);
+        }
+    };
+
+    private static @Nullable Handler sHandler;
+
+    private LocationThread() {
+    }
+
+    static synchronized Handler getHandler() {
+        if (sHandler == null) {
+            HandlerThread thread = new HandlerThread(NAME);
+            thread.start();
+            sHandler = new Handler(thread.getLooper());
+        }
+        return sHandler;
+    }
+
+    static Looper getLooper() {
+        return getHandler().getLooper();
+    }
+
+    /**
+     * For APIs that take an {@link Executor} rather than a {@link Looper}.
+     */
+    static Executor getExecutor() {
+        return EXECUTOR;
+    }
+}
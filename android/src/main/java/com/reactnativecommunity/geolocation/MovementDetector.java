@@ -0,0 +1,58 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tells from a stream of fixes whether the device is moving. The device counts as stationary once
+ * its fixes stayed within a small radius of an anchor fix, without reporting walking speed, for
+ * {@link #STATIONARY_AFTER_MS}; it is moving again as soon as a fix leaves that radius or reports
+ * a higher speed.
+ */
+class MovementDetector {
+    private static final long STATIONARY_AFTER_MS = 2 * 60 * 1000;
+    private static final float STATIONARY_RADIUS_METERS = 30;
+    private static final float MOVING_SPEED_MPS = 1;
+
+    private @Nullable Location mAnchor;
+    private boolean mStationary;
+
+    /**
+     * @return whether the movement state changed with this fix
+     */
+    synchronized boolean update(Location location) {
+        Location anchor = mAnchor;
+        if (anchor == null) {
+            mAnchor = location;
+            return false;
+        }
+
+        float radius = Math.max(STATIONARY_RADIUS_METERS, location.hasAccuracy() ? location.getAccuracy() : 0);
+        boolean moved = anchor.distanceTo(location) > radius
+                || (location.hasSpeed() && location.getSpeed() > MOVING_SPEED_MPS);
+        if (moved) {
+            mAnchor = location;
+            if (mStationary) {
+                mStationary = false;
+                return true;
+            }
+            return false;
+        }
+
+        if (!mStationary && location.getTime() - anchor.getTime() >= STATIONARY_AFTER_MS) {
+            mStationary = true;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean isStationary() {
+        return mStationary;
+    }
+
+    synchronized void reset() {
+        mAnchor = null;
+        mStationary = false;
+    }
+}
@@ -1,21 +1,18 @@
 package com.reactnativecommunity.geolocation;
 
 import android.annotation.SuppressLint;
-import android.app.Activity;
 import android.location.Location;
-import android.os.Looper;
-import android.util.Log;
 import android.content.Context;
 import android.location.LocationManager;
 
 import androidx.annotation.NonNull;
 
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableMap;
-import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.common.SystemClock;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationAvailability;
 import com.google.android.gms.location.LocationCallback;
@@ -26,16 +23,25 @@ import com.google.android.gms.location.LocationSettingsRequest;
 import com.google.android.gms.location.Priority;
 import com.google.android.gms.location.SettingsClient;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
 @SuppressLint("MissingPermission")
 public class PlayServicesLocationManager extends BaseLocationManager {
-    private FusedLocationProviderClient mFusedLocationClient;
-    private LocationCallback mLocationCallback;
-    private LocationCallback mSingleLocationCallback;
+    private volatile @Nullable FusedLocationProviderClient mFusedLocationClient;
+    /**
+     * Callback of the current watch request. Replaced on the calling thread and registered on the
+     * location thread once the settings are checked, both under {@link #mLocationCallbackLock},
+     * so that a watch stopped meanwhile is not registered after all.
+     */
+    private volatile @Nullable LocationCallback mLocationCallback;
+    private final Object mLocationCallbackLock = new Object();
+    private final SingleLocationRequests mSingleRequests = new SingleLocationRequests(getMetrics());
     private SettingsClient mLocationServicesSettingsClient;
 
     protected PlayServicesLocationManager(ReactApplicationContext reactContext) {
         super(reactContext);
-        mFusedLocationClient = LocationServices.getFusedLocationProviderClient(reactContext);
         mLocationServicesSettingsClient = LocationServices.getSettingsClient(reactContext);
     }
 
@@ -43,32 +49,36 @@ public class PlayServicesLocationManager extends BaseLocationManager {
     public void getCurrentLocationData(ReadableMap options, Callback success, Callback error) {
         AndroidLocationManager.LocationOptions locationOptions = AndroidLocationManager.LocationOptions.fromReactMap(options);
 
-        Activity currentActivity = mReactContext.getCurrentActivity();
-
-        if (currentActivity == null) {
-            mSingleLocationCallback = createSingleLocationCallback(success, error);
-            checkLocationSettings(options, mSingleLocationCallback, error);
-			return;
+        Location cached = LastLocationCache.getInstance()
+                .get(locationOptions.accuracy, locationOptions.maximumAge, SystemClock.currentTimeMillis());
+        if (cached != null) {
+            success.invoke(locationToMap(cached, locationOptions.includeExtras));
+            return;
         }
 
         try {
-            mFusedLocationClient.getLastLocation()
-                    .addOnSuccessListener(currentActivity, location -> {
+            getFusedLocationClient().getLastLocation()
+                    .addOnSuccessListener(LocationThread.getExecutor(), location -> {
+                        LastLocationCache.getInstance().put(location);
                         if (location != null && (SystemClock.currentTimeMillis() - location.getTime()) < locationOptions.maximumAge) {
-                            success.invoke(locationToMap(location));
+                            success.invoke(locationToMap(location, locationOptions.includeExtras));
                         } else {
-                            mSingleLocationCallback = createSingleLocationCallback(success, error);
-                            checkLocationSettings(options, mSingleLocationCallback, error);
+                            requestSingleLocation(locationOptions, success, error);
                         }
-                    });
+                    })
+                    .addOnFailureListener(LocationThread.getExecutor(), e -> requestSingleLocation(locationOptions, success, error));
         } catch (SecurityException e) {
             throw e;
         }
     }
 
     @Override
-    public void startObserving(ReadableMap options) {
-        mLocationCallback = new LocationCallback() {
+    protected void requestWatchUpdates(LocationOptions options, long providerBatchDelayMs) {
+        removeWatchUpdates();
+
+        // the fused provider already held fixes back for the batch window, so each result is a full batch
+        boolean providerBatching = providerBatchDelayMs > 0;
+        final LocationCallback locationCallback = new LocationCallback() {
             @Override
             public void onLocationResult(LocationResult locationResult) {
                 if (locationResult == null) {
@@ -76,8 +86,7 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                     return;
                 }
 
-                mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                            .emit("geolocationDidChange", locationToMap(locationResult.getLastLocation()));
+                emitLocations(locationResult.getLocations(), providerBatching);
             }
 
             @Override
@@ -87,24 +96,88 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                 }
             }
         };
+        synchronized (mLocationCallbackLock) {
+            mLocationCallback = locationCallback;
+        }
 
-        checkLocationSettings(options, mLocationCallback, null);
+        checkLocationSettings(options, providerBatchDelayMs, locationRequest -> {
+            // watches may have changed again while the settings were being checked
+            synchronized (mLocationCallbackLock) {
+                if (locationCallback == mLocationCallback) {
+                    requestLocationUpdates(locationRequest, locationCallback);
+                }
+            }
+        }, null);
     }
 
     @Override
-    public void stopObserving() {
-        if(mLocationCallback == null) {
+    protected void removeWatchUpdates() {
+        synchronized (mLocationCallbackLock) {
+            LocationCallback locationCallback = mLocationCallback;
+            if (locationCallback == null) {
+                return;
+            }
+            getFusedLocationClient().removeLocationUpdates(locationCallback);
+            mLocationCallback = null;
+        }
+    }
+
+    /**
+     * Connects to Play Services and fetches the last location into the {@link LastLocationCache}.
+     */
+    @Override
+    protected void prefetch() {
+        if (!ProviderStateCache.getInstance().hasLocationPermission(mReactContext)) {
             return;
         }
-        mFusedLocationClient.removeLocationUpdates(mLocationCallback);
+        try {
+            getFusedLocationClient().getLastLocation()
+                    .addOnSuccessListener(LocationThread.getExecutor(), location -> LastLocationCache.getInstance().put(location));
+        } catch (SecurityException e) {
+            FLog.w(ReactConstants.TAG, "LocationModule: Could not prefetch the last location", e);
+        }
     }
 
-    private void checkLocationSettings(ReadableMap options, LocationCallback locationCallback, Callback error) {
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
+    /**
+     * The client is created on first use rather than with the manager, as connecting to Play
+     * Services is costly. With warm start, that first use is {@link #prefetch()}.
+     */
+    private FusedLocationProviderClient getFusedLocationClient() {
+        FusedLocationProviderClient client = mFusedLocationClient;
+        if (client == null) {
+            synchronized (this) {
+                client = mFusedLocationClient;
+                if (client == null) {
+                    client = LocationServices.getFusedLocationProviderClient(mReactContext);
+                    mFusedLocationClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static int toPriority(int accuracy) {
+        switch (accuracy) {
+            case LocationOptions.ACCURACY_HIGH:
+                return Priority.PRIORITY_HIGH_ACCURACY;
+            case LocationOptions.ACCURACY_BALANCED:
+                return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            case LocationOptions.ACCURACY_PASSIVE:
+                return Priority.PRIORITY_PASSIVE;
+            default:
+                return Priority.PRIORITY_LOW_POWER;
+        }
+    }
+
+    private void checkLocationSettings(LocationOptions locationOptions, long maxUpdateDelayMs, OnLocationRequestReady onReady, Callback error) {
         LocationRequest.Builder requestBuilder = new LocationRequest.Builder(locationOptions.interval);
-        requestBuilder.setPriority(locationOptions.highAccuracy ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_LOW_POWER);
+        requestBuilder.setPriority(toPriority(locationOptions.accuracy));
         requestBuilder.setMaxUpdateAgeMillis((long) locationOptions.maximumAge);
 
+        if (maxUpdateDelayMs > 0) {
+            requestBuilder.setMaxUpdateDelayMillis(maxUpdateDelayMs);
+        }
+
         if (locationOptions.fastestInterval >= 0) {
             requestBuilder.setMinUpdateIntervalMillis(locationOptions.fastestInterval);
         }
@@ -118,10 +191,11 @@ public class PlayServicesLocationManager extends BaseLocationManager {
         settingsBuilder.addLocationRequest(locationRequest);
         LocationSettingsRequest locationSettingsRequest = settingsBuilder.build();
         mLocationServicesSettingsClient.checkLocationSettings(locationSettingsRequest)
-                .addOnSuccessListener(locationSettingsResponse -> requestLocationUpdates(locationRequest, locationCallback))
-                .addOnFailureListener(err -> {
+                .addOnSuccessListener(LocationThread.getExecutor(), locationSettingsResponse -> onReady.onReady(locationRequest))
+                .addOnFailureListener(LocationThread.getExecutor(), err -> {
+                    getMetrics().increment(LocationMetrics.SETTINGS_CHECK_FAILURES);
                     if(isAnyProviderAvailable()){
-                        requestLocationUpdates(locationRequest, locationCallback);
+                        onReady.onReady(locationRequest);
                         return;
                     }
 
@@ -137,12 +211,43 @@ public class PlayServicesLocationManager extends BaseLocationManager {
 
     private void requestLocationUpdates(LocationRequest locationRequest, LocationCallback locationCallback) {
         try {
-            mFusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+            getFusedLocationClient().requestLocationUpdates(locationRequest, LocationThread.getExecutor(), locationCallback);
         } catch (SecurityException e) {
             throw e;
         }
     }
 
+    private void requestSingleLocation(LocationOptions locationOptions, Callback success, Callback error) {
+        mSingleRequests.request(
+                String.valueOf(locationOptions.accuracy),
+                locationOptions,
+                null,
+                group -> requestSingleUpdates(locationOptions, group),
+                success,
+                error);
+    }
+
+    private SingleLocationRequests.Registration requestSingleUpdates(LocationOptions locationOptions, SingleLocationRequests.Group group) {
+        final LocationCallback locationCallback = createSingleLocationCallback(group);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        checkLocationSettings(locationOptions, 0, locationRequest -> {
+            if (!cancelled.get()) {
+                requestLocationUpdates(locationRequest, locationCallback);
+                // cancelled between the check and the request, after the callback was removed
+                if (cancelled.get()) {
+                    getFusedLocationClient().removeLocationUpdates(locationCallback);
+                }
+            }
+        }, args -> {
+            ReadableMap cause = (ReadableMap) args[0];
+            group.onError(cause.getInt("code"), cause.getString("message"));
+        });
+        return () -> {
+            cancelled.set(true);
+            getFusedLocationClient().removeLocationUpdates(locationCallback);
+        };
+    }
+
     private boolean isAnyProviderAvailable() {
         if (mReactContext == null) {
         return false;
@@ -152,58 +257,30 @@ public class PlayServicesLocationManager extends BaseLocationManager {
         return locationManager != null && (locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER) || locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER));
     }
 
-    private LocationCallback createSingleLocationCallback(Callback success, Callback error) {
-        final CallbackHolder callbackHolder = new CallbackHolder(success, error);
-
+    private LocationCallback createSingleLocationCallback(SingleLocationRequests.Group group) {
         return new LocationCallback() {
             @Override
             public void onLocationResult(@NonNull LocationResult locationResult) {
                 Location location = locationResult.getLastLocation();
 
                 if (location == null) {
-                    callbackHolder.error(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "No location provided (FusedLocationProvider/lastLocation)."));
+                    group.onError(PositionError.POSITION_UNAVAILABLE, "No location provided (FusedLocationProvider/lastLocation).");
                     return;
                 }
 
-                callbackHolder.success(location);
-
-                mFusedLocationClient.removeLocationUpdates(mSingleLocationCallback);
-                mSingleLocationCallback = null;
+                group.onLocation(location);
             }
 
             @Override
             public void onLocationAvailability(@NonNull LocationAvailability locationAvailability) {
                 if (!locationAvailability.isLocationAvailable()) {
-                    callbackHolder.error(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Location not available (FusedLocationProvider/lastLocation)."));
+                    group.onError(PositionError.POSITION_UNAVAILABLE, "Location not available (FusedLocationProvider/lastLocation).");
                 }
             }
         };
     }
 
-    private static class CallbackHolder {
-        Callback success;
-        Callback error;
-        public CallbackHolder(Callback success, Callback error) {
-            this.success = success;
-            this.error = error;
-        }
-
-        public void error(WritableMap cause) {
-            if (this.error == null) {
-                Log.e(this.getClass().getSimpleName(), "tried to invoke null error callback -> " + cause.toString());
-                return;
-            }
-            this.error.invoke(cause);
-            this.error = null;
-        }
-
-        public void success(Location location) {
-            if (this.success == null) {
-                Log.e(this.getClass().getSimpleName(), "tried to invoke null success callback");
-                return;
-            }
-            this.success.invoke(locationToMap(location));
-            this.success = null;
-        }
+    private interface OnLocationRequestReady {
+        void onReady(LocationRequest locationRequest);
     }
 }
@@ -0,0 +1,121 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide record of how each platform provider has been answering single location requests:
+ * its time to first fix, the accuracy of that fix and how often it gave none at all. Single
+ * requests use it to avoid a provider that is known to time out, e.g. GPS indoors, when another
+ * one has been answering.
+ * <p>
+ * All figures are exponential moving averages, so that a provider recovers once conditions
+ * change. A provider that has not been tried for {@link #RETRY_AFTER_MS} is given another chance
+ * regardless of its record.
+ */
+final class ProviderHealth {
+    /**
+     * Weight of the latest attempt in the moving averages.
+     */
+    private static final double ALPHA = 0.3;
+    /**
+     * Attempts needed before a provider's record is trusted.
+     */
+    private static final int MIN_ATTEMPTS = 3;
+    private static final double MAX_TIMEOUT_RATE = 0.5;
+    private static final long RETRY_AFTER_MS = 5 * 60 * 1000;
+
+    private static final ProviderHealth INSTANCE = new ProviderHealth();
+
+    private static final class Stats {
+        long attempts;
+        double timeoutRate;
+        double timeToFirstFixMs = Double.NaN;
+        double accuracy = Double.NaN;
+        long lastAttemptTime;
+    }
+
+    private final Map<String, Stats> mStats = new HashMap<>();
+
+    static ProviderHealth getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records an attempt that got a fix after {@code timeToFirstFixMs}.
+     *
+     * @param accuracy the accuracy of the fix in meters, or NaN if it has none
+     */
+    synchronized void recordFix(String provider, long timeToFirstFixMs, double accuracy, long now) {
+        Stats stats = recordAttempt(provider, now);
+        stats.timeoutRate = average(stats.timeoutRate, 0);
+        stats.timeToFirstFixMs = Double.isNaN(stats.timeToFirstFixMs)
+                ? timeToFirstFixMs
+                : average(stats.timeToFirstFixMs, timeToFirstFixMs);
+        if (!Double.isNaN(accuracy)) {
+            stats.accuracy = Double.isNaN(stats.accuracy) ? accuracy : average(stats.accuracy, accuracy);
+        }
+    }
+
+    /**
+     * Records an attempt that was given up before any fix came.
+     */
+    synchronized void recordTimeout(String provider, long now) {
+        Stats stats = recordAttempt(provider, now);
+        stats.timeoutRate = average(stats.timeoutRate, 1);
+    }
+
+    /**
+     * @return false if the provider's record says it will probably not answer within
+     * {@code timeout} ms, because it has mostly been timing out or its first fixes took longer
+     */
+    synchronized boolean isHealthy(String provider, long timeout, long now) {
+        Stats stats = mStats.get(provider);
+        if (stats == null || stats.attempts < MIN_ATTEMPTS || now - stats.lastAttemptTime > RETRY_AFTER_MS) {
+            return true;
+        }
+        return stats.timeoutRate < MAX_TIMEOUT_RATE && !(stats.timeToFirstFixMs > timeout);
+    }
+
+    /**
+     * Forgets the record of every provider.
+     */
+    synchronized void clear() {
+        mStats.clear();
+    }
+
+    /**
+     * @return the record of every provider tried so far, by provider name
+     */
+    synchronized WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, Stats> entry : mStats.entrySet()) {
+            Stats stats = entry.getValue();
+            WritableMap provider = Arguments.createMap();
+            provider.putDouble("attempts", stats.attempts);
+            provider.putDouble("timeoutRate", stats.timeoutRate);
+            provider.putDouble("timeToFirstFixMs", Double.isNaN(stats.timeToFirstFixMs) ? 0 : stats.timeToFirstFixMs);
+            provider.putDouble("accuracy", Double.isNaN(stats.accuracy) ? 0 : stats.accuracy);
+            map.putMap(entry.getKey(), provider);
+        }
+        return map;
+    }
+
+    private Stats recordAttempt(String provider, long now) {
+        Stats stats = mStats.get(provider);
+        if (stats == null) {
+            stats = new Stats();
+            mStats.put(provider, stats);
+        }
+        stats.attempts++;
+        stats.lastAttemptTime = now;
+        return stats;
+    }
+
+    private static double average(double average, double value) {
+        return average + ALPHA * (value - average);
+    }
+}
@@ -0,0 +1,110 @@
+package com.reactnativecommunity.geolocation;
+
+import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.LocationManager;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of whether each provider is enabled and whether the app holds each location
+ * permission, so that requests do not ask the system service every time.
+ * <p>
+ * Enablement is dropped whenever the system broadcasts a change of the providers (which includes
+ * the location setting being turned off or on). Permissions are dropped with
+ * {@link #invalidatePermissions()}, whenever the app comes back to the foreground (where the user
+ * may have granted them in the settings) and whenever a permission request completes. Revoking a
+ * permission kills the process, which takes the cache with it.
+ */
+final class ProviderStateCache {
+    private static final ProviderStateCache INSTANCE = new ProviderStateCache();
+
+    private final ConcurrentHashMap<String, Boolean> mEnabled = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> mGranted = new ConcurrentHashMap<>();
+    /**
+     * Bumped on every change, so that a lookup racing with it does not cache its stale result.
+     */
+    private volatile int mGeneration;
+    private volatile int mPermissionGeneration;
+    private boolean mReceiverRegistered;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidateProviders();
+        }
+    };
+
+    static ProviderStateCache getInstance() {
+        return INSTANCE;
+    }
+
+    boolean isProviderEnabled(Context context, LocationManager locationManager, String provider) {
+        Boolean enabled = mEnabled.get(provider);
+        if (enabled != null) {
+            return enabled;
+        }
+        registerReceiver(context);
+        int generation = mGeneration;
+        enabled = locationManager.isProviderEnabled(provider);
+        if (generation == mGeneration) {
+            mEnabled.put(provider, enabled);
+        }
+        return enabled;
+    }
+
+    /**
+     * Takes in what a location listener was told, ahead of the broadcast.
+     */
+    void setProviderEnabled(String provider, boolean enabled) {
+        mGeneration++;
+        mEnabled.put(provider, enabled);
+    }
+
+    void invalidateProviders() {
+        mGeneration++;
+        mEnabled.clear();
+    }
+
+    boolean hasPermission(Context context, String permission) {
+        Boolean granted = mGranted.get(permission);
+        if (granted != null) {
+            return granted;
+        }
+        int generation = mPermissionGeneration;
+        granted = ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+        if (generation == mPermissionGeneration) {
+            mGranted.put(permission, granted);
+        }
+        return granted;
+    }
+
+    /**
+     * Whether the app may use locations at all, i.e. holds either location permission.
+     */
+    boolean hasLocationPermission(Context context) {
+        return hasPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                || hasPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION);
+    }
+
+    void invalidatePermissions() {
+        mPermissionGeneration++;
+        mGranted.clear();
+    }
+
+    private synchronized void registerReceiver(Context context) {
+        if (mReceiverRegistered) {
+            return;
+        }
+        // a system broadcast, which context-registered receivers get without an export flag
+        context.getApplicationContext().registerReceiver(
+                mReceiver, new IntentFilter(LocationManager.PROVIDERS_CHANGED_ACTION));
+        mReceiverRegistered = true;
+    }
+}
@@ -0,0 +1,201 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Handler;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.common.SystemClock;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Plays a recorded track back as if it came from a provider, so that the location pipeline can
+ * be exercised without a GPS. The track is a GPX file, or a directory holding a
+ * {@link TrackRecorder} log (the module's own recording by default).
+ *
+ * <p>Playback runs on a virtual clock: fixes keep their recorded spacing, shifted to start when
+ * playback started, but are delivered {@code replaySpeed} times faster. Watches filter them by
+ * those timestamps as usual. Playback pauses while nothing is watched and resumes where it left
+ * off.
+ *
+ * <p>Replayed fixes are not live: they are neither cached for the other engines nor recorded.
+ */
+class ReplayLocationManager extends BaseLocationManager {
+    private static final String PROVIDER = "replay";
+    /**
+     * Virtual time between the last fix of a looped track and its first fix.
+     */
+    private static final long LOOP_GAP_MS = 1000;
+
+    private final File mTrack;
+    private final double mSpeed;
+    private final boolean mLoop;
+    private final Handler mHandler = LocationThread.getHandler();
+    private final Runnable mStep = new Runnable() {
+        @Override
+        public void run() {
+            step();
+        }
+    };
+    // only touched on the location thread
+    private @Nullable double[] mFixes;
+    private int mIndex;
+    private long mClockOffset;
+    private long mLastTime;
+    private boolean mPlaying;
+    private @Nullable Location mLast;
+
+    ReplayLocationManager(ReactApplicationContext reactContext, File track, double speed, boolean loop) {
+        super(reactContext);
+        mTrack = track;
+        mSpeed = speed;
+        mLoop = loop;
+    }
+
+    /**
+     * @param config map containing optional arguments: replayTrack (path of the GPX file or track
+     *               log directory), replaySpeed (1 by default) and replayLoop (boolean)
+     */
+    static ReplayLocationManager fromConfig(ReactApplicationContext reactContext, ReadableMap config) {
+        File track = config.hasKey("replayTrack")
+                ? new File(config.getString("replayTrack"))
+                : new File(reactContext.getFilesDir(), "RNCGeolocation/track");
+        double speed = config.hasKey("replaySpeed") ? config.getDouble("replaySpeed") : 1;
+        boolean loop = config.hasKey("replayLoop") && config.getBoolean("replayLoop");
+        return new ReplayLocationManager(reactContext, track, speed > 0 ? speed : 1, loop);
+    }
+
+    @Override
+    public void getCurrentLocationData(ReadableMap options, final Callback success, final Callback error) {
+        final boolean includeExtras = LocationOptions.fromReactMap(options).includeExtras;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Location location = mLast;
+                if (location == null && load()) {
+                    location = toLocation(0, SystemClock.currentTimeMillis() - time(0));
+                }
+                if (location != null) {
+                    success.invoke(locationToMap(location, includeExtras));
+                } else {
+                    error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "No replay track available."));
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void requestWatchUpdates(LocationOptions options, long providerBatchDelayMs) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                play();
+            }
+        });
+    }
+
+    @Override
+    protected void removeWatchUpdates() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mPlaying = false;
+                mHandler.removeCallbacks(mStep);
+            }
+        });
+    }
+
+    @Override
+    protected boolean isLive() {
+        return false;
+    }
+
+    /**
+     * Reads the track ahead of playback.
+     */
+    @Override
+    protected void prefetch() {
+        load();
+    }
+
+    private void play() {
+        if (mPlaying) {
+            return;
+        }
+        if (!load()) {
+            emitError(PositionError.POSITION_UNAVAILABLE, "No replay track available.");
+            return;
+        }
+        // never let the virtual clock run backwards, it may be ahead of the wall clock
+        long start = Math.max(SystemClock.currentTimeMillis(), mLastTime + 1);
+        mClockOffset = start - time(mIndex);
+        mPlaying = true;
+        mHandler.post(mStep);
+    }
+
+    private void step() {
+        if (!mPlaying || mFixes == null) {
+            return;
+        }
+        Location location = toLocation(mIndex, mClockOffset);
+        mLast = location;
+        mLastTime = location.getTime();
+        emitLocation(location);
+
+        long delay;
+        if (mIndex + 1 < count()) {
+            delay = time(mIndex + 1) - time(mIndex);
+            mIndex++;
+        } else if (mLoop) {
+            delay = LOOP_GAP_MS;
+            mClockOffset = mLastTime + LOOP_GAP_MS - time(0);
+            mIndex = 0;
+        } else {
+            mPlaying = false;
+            return;
+        }
+        mHandler.postDelayed(mStep, Math.max(0, Math.round(delay / mSpeed)));
+    }
+
+    /**
+     * @return whether a non-empty track is loaded
+     */
+    private boolean load() {
+        if (mFixes == null) {
+            try {
+                mFixes = mTrack.isDirectory()
+                        ? new TrackRecorder(mTrack).readPacked()
+                        : GpxTrackReader.read(mTrack);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return count() > 0;
+    }
+
+    private int count() {
+        return mFixes == null ? 0 : mFixes.length / LocationSerializer.FIELD_COUNT;
+    }
+
+    private long time(int index) {
+        return (long) mFixes[index * LocationSerializer.FIELD_COUNT + LocationSerializer.TIMESTAMP];
+    }
+
+    private Location toLocation(int index, long clockOffset) {
+        int offset = index * LocationSerializer.FIELD_COUNT;
+        Location location = new Location(PROVIDER);
+        location.setLatitude(mFixes[offset + LocationSerializer.LATITUDE]);
+        location.setLongitude(mFixes[offset + LocationSerializer.LONGITUDE]);
+        location.setAltitude(mFixes[offset + LocationSerializer.ALTITUDE]);
+        location.setAccuracy((float) mFixes[offset + LocationSerializer.ACCURACY]);
+        location.setBearing((float) mFixes[offset + LocationSerializer.HEADING]);
+        location.setSpeed((float) mFixes[offset + LocationSerializer.SPEED]);
+        location.setTime(time(index) + clockOffset);
+        return location;
+    }
+}
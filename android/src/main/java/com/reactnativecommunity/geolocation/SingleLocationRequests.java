@@ -0,0 +1,382 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Handler;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.common.ReactConstants;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+/**
+ * Pending {@code getCurrentPosition} calls of either location manager. Calls that are compatible,
+ * i.e. made with the same key (provider and accuracy) and {@code desiredAccuracy}, share one
+ * provider registration: the first fix that is better than the last known one, and at least as
+ * accurate as desired, answers all of them. Each call still times out on its own, and the
+ * registration is dropped once no call is waiting for it.
+ * <p>
+ * A call with a {@code softDeadline} settles for less: once it passes, the call is answered with
+ * the best fix the registration got so far, or else the next one.
+ * <p>
+ * Every call leaves {@link #PENDING} exactly once, through a compare-and-set, for
+ * {@link #RESOLVED} (answered with a fix or a provider error), {@link #TIMED_OUT} or
+ * {@link #CANCELLED}. Whoever wins that transition invokes the one callback the call gets, so
+ * fixes, errors and timeouts may race on any thread without taking a lock.
+ */
+class SingleLocationRequests {
+    /**
+     * Starts the provider registration of a new group of calls.
+     */
+    interface Registrar {
+        /**
+         * Registers for updates and reports them to {@link Group#onLocation} or
+         * {@link Group#onError}.
+         */
+        Registration register(Group group);
+    }
+
+    interface Registration {
+        void cancel();
+    }
+
+    static final int PENDING = 0;
+    static final int RESOLVED = 1;
+    static final int TIMED_OUT = 2;
+    static final int CANCELLED = 3;
+
+    /**
+     * Takes the place of the registration once a group is closed.
+     */
+    private static final Registration CLOSED = new Registration() {
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private static final class Request {
+        final Callback success;
+        final Callback error;
+        final boolean includeExtras;
+        final long startNanos = System.nanoTime();
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        volatile @Nullable Runnable timeoutRunnable;
+        volatile @Nullable Runnable deadlineRunnable;
+        /**
+         * Whether the soft deadline passed, so that any fix will do.
+         */
+        volatile boolean overdue;
+
+        Request(Callback success, Callback error, boolean includeExtras) {
+            this.success = success;
+            this.error = error;
+            this.includeExtras = includeExtras;
+        }
+
+        /**
+         * @return whether the request was still pending, i.e. whether the caller is the one to
+         * answer it
+         */
+        boolean settle(int newState) {
+            return state.compareAndSet(PENDING, newState);
+        }
+    }
+
+    /**
+     * The calls sharing one provider registration.
+     */
+    final class Group {
+        private final String mKey;
+        private final ConcurrentLinkedQueue<Request> mRequests = new ConcurrentLinkedQueue<>();
+        /**
+         * Number of calls that joined and did not time out, or -1 once no call may join anymore.
+         */
+        private final AtomicInteger mJoined = new AtomicInteger();
+        private final AtomicReference<Registration> mRegistration = new AtomicReference<>();
+        private final float mDesiredAccuracy;
+        private volatile @Nullable Location mOldLocation;
+        /**
+         * The best fix of this registration so far, for calls past their soft deadline.
+         */
+        private volatile @Nullable Location mBest;
+
+        private Group(String key, @Nullable Location oldLocation, float desiredAccuracy) {
+            mKey = key;
+            mOldLocation = oldLocation;
+            mDesiredAccuracy = desiredAccuracy;
+        }
+
+        /**
+         * Answers every waiting call with the fix, unless it is not better than the last one or
+         * not as accurate as desired. Calls past their soft deadline take it regardless, if it is
+         * the best so far.
+         */
+        void onLocation(Location location) {
+            if (mRegistration.get() == CLOSED) {
+                return;
+            }
+            // written before the overdue flags are read, see onSoftDeadline
+            if (BaseLocationManager.isBetterLocation(location, mBest)) {
+                mBest = location;
+            }
+            if (!BaseLocationManager.isBetterLocation(location, mOldLocation)) {
+                mOldLocation = location;
+                answerOverdue();
+                return;
+            }
+            if (!isAccurateEnough(location)) {
+                answerOverdue();
+                return;
+            }
+            if (!close()) {
+                return;
+            }
+
+            LastLocationCache.getInstance().put(location);
+            Request request;
+            while ((request = mRequests.poll()) != null) {
+                if (request.settle(RESOLVED)) {
+                    answer(request, location);
+                }
+            }
+        }
+
+        private boolean isAccurateEnough(Location location) {
+            return mDesiredAccuracy == Float.POSITIVE_INFINITY
+                    || location.hasAccuracy() && location.getAccuracy() <= mDesiredAccuracy;
+        }
+
+        private void answerOverdue() {
+            Location best = mBest;
+            if (best == null) {
+                return;
+            }
+            for (Request request : mRequests) {
+                if (request.overdue) {
+                    answerEarly(request, best);
+                }
+            }
+        }
+
+        /**
+         * Answers the call with the best fix so far, or lets the next fix answer it.
+         */
+        private void onSoftDeadline(Request request) {
+            // set before the best fix is read, so that either this or onLocation answers it
+            request.overdue = true;
+            Location best = mBest;
+            if (best != null) {
+                answerEarly(request, best);
+            }
+        }
+
+        /**
+         * Answers a single call, leaving the registration to the others.
+         */
+        private void answerEarly(Request request, Location location) {
+            if (!request.settle(RESOLVED)) {
+                return;
+            }
+            mRequests.remove(request);
+            leave();
+            LastLocationCache.getInstance().put(location);
+            answer(request, location);
+        }
+
+        /**
+         * Fails every waiting call.
+         */
+        void onError(int code, String message) {
+            if (close()) {
+                failAll(null, code, message);
+            }
+        }
+
+        private void failAll(@Nullable Request except, int code, String message) {
+            Request request;
+            while ((request = mRequests.poll()) != null) {
+                if (request != except && request.settle(RESOLVED)) {
+                    removeTimeout(request);
+                    request.error.invoke(PositionError.buildError(code, message));
+                }
+            }
+        }
+
+        /**
+         * @return false if the group was closed before the request could join it, in which case
+         * the request has to go to a new group
+         */
+        private boolean join(Request request) {
+            // queued first, so that whoever closes the group from now on also answers it
+            mRequests.add(request);
+            while (true) {
+                int joined = mJoined.get();
+                if (joined < 0) {
+                    // unless it was answered already, take it back
+                    return !mRequests.remove(request);
+                }
+                if (mJoined.compareAndSet(joined, joined + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Stops new calls from joining and drops the provider registration.
+         *
+         * @return whether this call closed the group, i.e. whether the caller is the one to
+         * answer the calls still queued
+         */
+        private boolean close() {
+            mJoined.set(-1);
+            Registration registration = mRegistration.getAndSet(CLOSED);
+            if (registration == CLOSED) {
+                return false;
+            }
+            mGroups.remove(mKey, this);
+            if (registration != null) {
+                registration.cancel();
+            }
+            return true;
+        }
+
+        /**
+         * Keeps the registration for {@link #close()}, or cancels it right away if the group was
+         * closed while it was being made.
+         */
+        private void setRegistration(Registration registration) {
+            if (!mRegistration.compareAndSet(null, registration)) {
+                registration.cancel();
+            }
+        }
+
+        private void timeOut(Request request) {
+            if (!request.settle(TIMED_OUT)) {
+                return;
+            }
+            mRequests.remove(request);
+            leave();
+            removeTimeout(request);
+
+            mMetrics.increment(LocationMetrics.SINGLE_TIMEOUTS);
+            request.error.invoke(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
+            FLog.i(ReactConstants.TAG, "LocationModule: Location request timed out");
+        }
+
+        /**
+         * Takes back a call that no longer waits.
+         */
+        private void leave() {
+            // the last call waiting closes the group, unless another one joins first
+            if (mJoined.decrementAndGet() == 0 && mJoined.compareAndSet(0, -1)) {
+                close();
+            }
+        }
+    }
+
+    private final Handler mHandler = LocationThread.getHandler();
+    private final ConcurrentHashMap<String, Group> mGroups = new ConcurrentHashMap<>();
+    private final LocationMetrics mMetrics;
+
+    /**
+     * @param metrics the metrics of the location manager making the calls
+     */
+    SingleLocationRequests(LocationMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Waits for a fresh fix, joining a pending registration with the same key if there is one.
+     *
+     * @param oldLocation the fix the new one has to be better than, typically the last known
+     * @param registrar   starts the registration when no compatible one is pending
+     */
+    void request(
+            String key,
+            BaseLocationManager.LocationOptions options,
+            @Nullable Location oldLocation,
+            Registrar registrar,
+            Callback success,
+            Callback error) {
+        final Request request = new Request(success, error, options.includeExtras);
+        if (options.desiredAccuracy < Float.POSITIVE_INFINITY) {
+            key += "~" + options.desiredAccuracy;
+        }
+        Group group;
+        boolean isNew;
+        while (true) {
+            Group created = new Group(key, oldLocation, options.desiredAccuracy);
+            Group existing = mGroups.putIfAbsent(key, created);
+            isNew = existing == null;
+            group = isNew ? created : existing;
+            if (group.join(request)) {
+                break;
+            }
+            mGroups.remove(key, group);
+        }
+
+        final Group target = group;
+        request.timeoutRunnable = new Runnable() {
+            @Override
+            public void run() {
+                target.timeOut(request);
+            }
+        };
+        if (options.softDeadline >= 0 && options.softDeadline < options.timeout) {
+            request.deadlineRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    target.onSoftDeadline(request);
+                }
+            };
+        }
+        if (request.state.get() == PENDING) {
+            mHandler.postDelayed(request.timeoutRunnable, options.timeout);
+            if (request.deadlineRunnable != null) {
+                mHandler.postDelayed(request.deadlineRunnable, options.softDeadline);
+            }
+        }
+
+        if (isNew) {
+            try {
+                group.setRegistration(registrar.register(group));
+            } catch (SecurityException e) {
+                request.settle(CANCELLED);
+                removeTimeout(request);
+                if (group.close()) {
+                    group.failAll(request, PositionError.PERMISSION_DENIED, e.getMessage());
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                // e.g. the provider was disabled meanwhile: no call may wait for, or join, a
+                // group that will never get a fix
+                if (group.close()) {
+                    group.failAll(null, PositionError.POSITION_UNAVAILABLE, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void answer(Request request, Location location) {
+        removeTimeout(request);
+        mMetrics.record(LocationMetrics.TIME_TO_FIRST_FIX_US,
+                (System.nanoTime() - request.startNanos) / 1000);
+        request.success.invoke(BaseLocationManager.locationToMap(location, request.includeExtras));
+    }
+
+    private void removeTimeout(Request request) {
+        Runnable timeoutRunnable = request.timeoutRunnable;
+        if (timeoutRunnable != null) {
+            mHandler.removeCallbacks(timeoutRunnable);
+        }
+        Runnable deadlineRunnable = request.deadlineRunnable;
+        if (deadlineRunnable != null) {
+            mHandler.removeCallbacks(deadlineRunnable);
+        }
+    }
+}
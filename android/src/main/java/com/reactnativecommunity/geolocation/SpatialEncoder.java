@@ -0,0 +1,154 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Optional stage of the location pipeline that tags each fix with the cells it lies in: a geohash
+ * of {@code geohashPrecision} characters and the quadkey of its Web Mercator tile at
+ * {@code tileZoom}. Both are computed as bits in a {@code long} without allocating, so that cell
+ * changes can be detected for free; only the strings put into payloads allocate.
+ */
+final class SpatialEncoder {
+    static final int MAX_GEOHASH_PRECISION = 12;
+    /**
+     * Two bits per level, kept within the 53 bits a JS number holds exactly.
+     */
+    static final int MAX_TILE_ZOOM = 26;
+    /**
+     * Returned for a disabled encoding, never a valid cell.
+     */
+    static final long NO_CELL = -1;
+
+    private static final String KEY_GEOHASH = "geohash";
+    private static final String KEY_QUADKEY = "quadkey";
+    private static final char[] GEOHASH_ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    /**
+     * The latitude where Web Mercator tiles end, making the map square.
+     */
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private static final SpatialEncoder INSTANCE = new SpatialEncoder();
+
+    private volatile int mGeohashPrecision;
+    private volatile int mTileZoom;
+
+    private SpatialEncoder() {
+    }
+
+    static SpatialEncoder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param geohashPrecision characters of the geohash, 0 to leave it out
+     * @param tileZoom         zoom level of the tile, 0 to leave it out
+     */
+    void configure(int geohashPrecision, int tileZoom) {
+        mGeohashPrecision = Math.max(0, Math.min(geohashPrecision, MAX_GEOHASH_PRECISION));
+        mTileZoom = Math.max(0, Math.min(tileZoom, MAX_TILE_ZOOM));
+    }
+
+    boolean isEnabled() {
+        return mGeohashPrecision > 0 || mTileZoom > 0;
+    }
+
+    int getGeohashPrecision() {
+        return mGeohashPrecision;
+    }
+
+    int getTileZoom() {
+        return mTileZoom;
+    }
+
+    /**
+     * Adds the enabled cells of the coordinates to {@code map}.
+     */
+    void putInto(WritableMap map, double latitude, double longitude) {
+        int precision = mGeohashPrecision;
+        if (precision > 0) {
+            map.putString(KEY_GEOHASH, geohashToString(geohash(latitude, longitude, precision), precision));
+        }
+        int zoom = mTileZoom;
+        if (zoom > 0) {
+            map.putString(KEY_QUADKEY, quadkeyToString(tile(latitude, longitude, zoom), zoom));
+        }
+    }
+
+    /**
+     * @return the {@code 5 * precision} bits of the geohash, alternating from longitude
+     */
+    static long geohash(double latitude, double longitude, int precision) {
+        if (precision <= 0) {
+            return NO_CELL;
+        }
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        long bits = 0;
+        for (int i = 0, n = precision * 5; i < n; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    bits |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+
+    static String geohashToString(long bits, int precision) {
+        char[] chars = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            chars[i] = GEOHASH_ALPHABET[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the Web Mercator tile at {@code zoom} as a quadkey of two bits per level, the
+     * latitude bit above the longitude one, i.e. the Morton code of the tile's x and y
+     */
+    static long tile(double latitude, double longitude, int zoom) {
+        if (zoom <= 0) {
+            return NO_CELL;
+        }
+        double sinLatitude = Math.sin(Math.toRadians(
+                Math.max(-MAX_MERCATOR_LATITUDE, Math.min(latitude, MAX_MERCATOR_LATITUDE))));
+        long size = 1L << zoom;
+        long x = clamp((long) Math.floor((longitude + 180) / 360 * size), size - 1);
+        long y = clamp((long) Math.floor(
+                (0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI)) * size), size - 1);
+        long quadkey = 0;
+        for (int i = zoom - 1; i >= 0; i--) {
+            quadkey = (quadkey << 2) | (((y >> i) & 1) << 1) | ((x >> i) & 1);
+        }
+        return quadkey;
+    }
+
+    static String quadkeyToString(long quadkey, int zoom) {
+        char[] chars = new char[zoom];
+        for (int i = zoom - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + (quadkey & 3));
+            quadkey >>>= 2;
+        }
+        return new String(chars);
+    }
+
+    private static long clamp(long value, long max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
@@ -0,0 +1,423 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.util.Base64;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+/**
+ * Append-only on-disk log of recorded fixes. Each fix is stored as a fixed-width record of the
+ * {@link LocationSerializer} packed fields followed by a magic number and a CRC32 of the fields,
+ * so a record torn by a crash or power loss is detected and cut off when the log is reopened.
+ * Records go to numbered segment files of {@link #SEGMENT_RECORDS} records each; once there are
+ * more than {@link #MAX_SEGMENTS}, the oldest one is deleted. A segment is forced to storage
+ * when it is completed and when the recorder is closed, so a power loss can only cost records of
+ * the segment still being written.
+ *
+ * <p>Records are addressed by a cursor, {@code segment * SEGMENT_RECORDS + index}, that stays
+ * valid across segment rotation.
+ *
+ * <p>Reads only take the lock that appends hold to look up the segments and how far the open one
+ * is written, and read the files outside of it, so a long export does not hold up recording.
+ */
+class TrackRecorder {
+    static final int SEGMENT_RECORDS = 16384;
+    static final int MAX_SEGMENTS = 64;
+
+    private static final int FIELDS_SIZE = LocationSerializer.FIELD_COUNT * 8;
+    private static final int RECORD_SIZE = FIELDS_SIZE + 8;
+    private static final int RECORD_MAGIC = 0x524e4347;
+    private static final int READ_CHUNK_RECORDS = 256;
+    private static final String SEGMENT_SUFFIX = ".trk";
+    /**
+     * Fields of an exported track, in column order.
+     */
+    private static final int[] EXPORT_COLUMNS = {
+            LocationSerializer.LATITUDE,
+            LocationSerializer.LONGITUDE,
+            LocationSerializer.ALTITUDE,
+            LocationSerializer.ACCURACY,
+            LocationSerializer.HEADING,
+            LocationSerializer.SPEED,
+            LocationSerializer.TIMESTAMP,
+    };
+
+    private final File mDirectory;
+    private final double[] mPacked = new double[LocationSerializer.FIELD_COUNT];
+    private final ByteBuffer mRecord = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 mCrc = new CRC32();
+    private @Nullable FileChannel mChannel;
+    private long mSegment;
+    private int mSegmentRecords;
+
+    TrackRecorder(File directory) {
+        mDirectory = directory;
+    }
+
+    synchronized boolean isOpen() {
+        return mChannel != null;
+    }
+
+    /**
+     * Opens the newest segment for appending, after dropping any torn records at its end.
+     */
+    synchronized void open() throws IOException {
+        if (mChannel != null) {
+            return;
+        }
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + mDirectory);
+        }
+        List<Long> segments = listSegments();
+        mSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        openSegment();
+    }
+
+    synchronized void close() {
+        forceQuietly(mChannel);
+        closeQuietly(mChannel);
+        mChannel = null;
+    }
+
+    /**
+     * Appends the fix to the log. Does nothing unless the recorder is open.
+     */
+    synchronized void append(Location location) throws IOException {
+        FileChannel channel = mChannel;
+        if (channel == null) {
+            return;
+        }
+        if (mSegmentRecords >= SEGMENT_RECORDS) {
+            rotate();
+            channel = mChannel;
+        }
+
+        LocationSerializer.write(location, mPacked, 0);
+        mRecord.clear();
+        for (double value : mPacked) {
+            mRecord.putDouble(value);
+        }
+        mCrc.reset();
+        mCrc.update(mRecord.array(), 0, FIELDS_SIZE);
+        mRecord.putInt(RECORD_MAGIC);
+        mRecord.putInt((int) mCrc.getValue());
+        mRecord.flip();
+        while (mRecord.hasRemaining()) {
+            channel.write(mRecord);
+        }
+        mSegmentRecords++;
+    }
+
+    /**
+     * Receives the records read by {@link #scan}.
+     */
+    private interface RecordVisitor {
+        void onRecord(double[] packed);
+    }
+
+    /**
+     * Collects visited records as consecutive packed fields.
+     */
+    private static final class PackedRows implements RecordVisitor {
+        double[] values = new double[LocationSerializer.FIELD_COUNT * 1024];
+        int count;
+
+        @Override
+        public void onRecord(double[] packed) {
+            int offset = count * LocationSerializer.FIELD_COUNT;
+            if (offset + LocationSerializer.FIELD_COUNT > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            System.arraycopy(packed, 0, values, offset, LocationSerializer.FIELD_COUNT);
+            count++;
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} fixes timestamped within {@code [from, to]}, starting at
+     * {@code cursor}.
+     *
+     * @return a map with the fixes under {@code positions}, in the usual JS format, and the cursor
+     * to continue from under {@code cursor}, or null once the log has been read to the end
+     */
+    WritableMap read(double from, double to, long cursor, int limit) throws IOException {
+        final WritableArray positions = Arguments.createArray();
+        long next = scan(from, to, cursor, limit, new RecordVisitor() {
+            @Override
+            public void onRecord(double[] packed) {
+                positions.pushMap(LocationSerializer.toMap(packed, 0));
+            }
+        });
+
+        WritableMap page = Arguments.createMap();
+        page.putArray("positions", positions);
+        putCursor(page, next);
+        return page;
+    }
+
+    /**
+     * Same as {@link #read} but packs the fixes column by column into a single little-endian
+     * buffer of doubles: {@link #EXPORT_COLUMNS} columns of {@code count} values each, so that JS
+     * can view it as one {@code Float64Array} instead of receiving a map per fix.
+     *
+     * @return a map with {@code count}, the base64 encoded buffer under {@code data} and
+     * {@code cursor}
+     */
+    WritableMap export(double from, double to, long cursor, int limit) throws IOException {
+        PackedRows rows = new PackedRows();
+        long next = scan(from, to, cursor, limit, rows);
+
+        int n = rows.count;
+        ByteBuffer buffer = ByteBuffer.allocate(EXPORT_COLUMNS.length * n * 8).order(ByteOrder.LITTLE_ENDIAN);
+        DoubleBuffer columns = buffer.asDoubleBuffer();
+        for (int field : EXPORT_COLUMNS) {
+            for (int i = 0; i < n; i++) {
+                columns.put(rows.values[i * LocationSerializer.FIELD_COUNT + field]);
+            }
+        }
+
+        WritableMap export = Arguments.createMap();
+        export.putInt("count", n);
+        export.putString("data", Base64.encodeToString(buffer.array(), Base64.NO_WRAP));
+        putCursor(export, next);
+        return export;
+    }
+
+    /**
+     * Reads every recorded fix, oldest first, as consecutive {@link LocationSerializer} packed
+     * fields.
+     */
+    double[] readPacked() throws IOException {
+        PackedRows rows = new PackedRows();
+        scan(0, Double.MAX_VALUE, 0, Integer.MAX_VALUE, rows);
+        return Arrays.copyOf(rows.values, rows.count * LocationSerializer.FIELD_COUNT);
+    }
+
+    /**
+     * Visits up to {@code limit} valid records timestamped within {@code [from, to]}, starting at
+     * {@code cursor}.
+     *
+     * @return the cursor of the first record left, or -1 once the log has been read to the end
+     */
+    private long scan(double from, double to, long cursor, int limit, RecordVisitor visitor) throws IOException {
+        long next = -1;
+        int count = 0;
+        double[] packed = new double[LocationSerializer.FIELD_COUNT];
+        ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_RECORDS * RECORD_SIZE);
+        CRC32 crc = new CRC32();
+
+        List<Long> segments;
+        long openSegment;
+        int openRecords;
+        synchronized (this) {
+            segments = listSegments();
+            openSegment = mChannel != null ? mSegment : -1;
+            openRecords = mSegmentRecords;
+        }
+        for (int i = 0; i < segments.size() && next < 0; i++) {
+            long segment = segments.get(i);
+            if ((segment + 1) * SEGMENT_RECORDS <= cursor) {
+                continue;
+            }
+            RandomAccessFile raf;
+            try {
+                raf = new RandomAccessFile(segmentFile(segment), "r");
+            } catch (FileNotFoundException e) {
+                // deleted by a rotation since the segments were listed
+                continue;
+            }
+            FileChannel channel = raf.getChannel();
+            try {
+                // records appended to the open segment from now on are left to the next read
+                int records = segment == openSegment
+                        ? openRecords
+                        : (int) (channel.size() / RECORD_SIZE);
+                int index = (int) Math.max(0, cursor - segment * SEGMENT_RECORDS);
+                if (records == 0 || index >= records || lastTimestamp(channel, records) < from) {
+                    continue;
+                }
+
+                while (index < records && next < 0) {
+                    int chunkRecords = Math.min(READ_CHUNK_RECORDS, records - index);
+                    chunk.clear();
+                    chunk.limit(chunkRecords * RECORD_SIZE);
+                    readFully(channel, chunk, (long) index * RECORD_SIZE);
+                    chunk.flip();
+
+                    for (int r = 0; r < chunkRecords; r++, index++) {
+                        if (count == limit) {
+                            next = segment * SEGMENT_RECORDS + index;
+                            break;
+                        }
+                        if (!decode(chunk, r * RECORD_SIZE, packed, crc)) {
+                            continue;
+                        }
+                        double timestamp = packed[LocationSerializer.TIMESTAMP];
+                        if (timestamp >= from && timestamp <= to) {
+                            visitor.onRecord(packed);
+                            count++;
+                        }
+                    }
+                }
+            } finally {
+                closeQuietly(raf);
+            }
+        }
+        return next;
+    }
+
+    private static void putCursor(WritableMap map, long cursor) {
+        if (cursor >= 0) {
+            map.putDouble("cursor", cursor);
+        } else {
+            map.putNull("cursor");
+        }
+    }
+
+    private void openSegment() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(segmentFile(mSegment), "rw");
+        FileChannel channel = raf.getChannel();
+        try {
+            mSegmentRecords = recoverTail(channel);
+            channel.position((long) mSegmentRecords * RECORD_SIZE);
+        } catch (IOException e) {
+            closeQuietly(raf);
+            throw e;
+        }
+        mChannel = channel;
+    }
+
+    private void rotate() throws IOException {
+        if (mChannel != null) {
+            mChannel.force(false);
+        }
+        closeQuietly(mChannel);
+        mChannel = null;
+        mSegment++;
+        openSegment();
+
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size() - MAX_SEGMENTS; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            segmentFile(segments.get(i)).delete();
+        }
+    }
+
+    /**
+     * Cuts off a partial last record and any trailing records that fail their checksum.
+     *
+     * @return the number of valid records left
+     */
+    private static int recoverTail(FileChannel channel) throws IOException {
+        int records = (int) (channel.size() / RECORD_SIZE);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        double[] packed = new double[LocationSerializer.FIELD_COUNT];
+        CRC32 crc = new CRC32();
+        while (records > 0) {
+            record.clear();
+            readFully(channel, record, (long) (records - 1) * RECORD_SIZE);
+            if (decode(record, 0, packed, crc)) {
+                break;
+            }
+            records--;
+        }
+        if (channel.size() != (long) records * RECORD_SIZE) {
+            channel.truncate((long) records * RECORD_SIZE);
+        }
+        return records;
+    }
+
+    private static double lastTimestamp(FileChannel channel, int records) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        readFully(channel, record, (long) (records - 1) * RECORD_SIZE);
+        return record.getDouble(LocationSerializer.TIMESTAMP * 8);
+    }
+
+    private static boolean decode(ByteBuffer buffer, int offset, double[] packed, CRC32 crc) {
+        if (buffer.getInt(offset + FIELDS_SIZE) != RECORD_MAGIC) {
+            return false;
+        }
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + offset, FIELDS_SIZE);
+        if (buffer.getInt(offset + FIELDS_SIZE + 4) != (int) crc.getValue()) {
+            return false;
+        }
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = buffer.getDouble(offset + i * 8);
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of track segment");
+            }
+            position += read;
+        }
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        String[] names = mDirectory.list();
+        if (names == null) {
+            return segments;
+        }
+        for (String name : names) {
+            if (!name.endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            try {
+                segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private File segmentFile(long segment) {
+        return new File(mDirectory, String.format(Locale.US, "%010d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private static void forceQuietly(@Nullable FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
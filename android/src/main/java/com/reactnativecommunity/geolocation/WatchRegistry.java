@@ -0,0 +1,260 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Active {@code watchPosition} calls, keyed by their JS watch id. The provider is registered once
+ * for all of them with {@link #merged(boolean)} options, and every fix it delivers is routed only to the
+ * watches whose {@link LocationFilter} lets it through.
+ */
+class WatchRegistry {
+    static final class Watch {
+        final int id;
+        final BaseLocationManager.LocationOptions options;
+        final LocationFilter filter;
+        /**
+         * Encodes the fixes of {@code compact} watches, which are always routed on their own.
+         */
+        final @Nullable CompactLocationEncoder encoder;
+        /**
+         * Internal watches only keep the provider running for native consumers and never
+         * receive fixes themselves.
+         */
+        final boolean internal;
+
+        Watch(int id, BaseLocationManager.LocationOptions options, boolean internal) {
+            this.id = id;
+            this.options = options;
+            this.filter = new LocationFilter(options);
+            this.encoder = options.compact ? new CompactLocationEncoder() : null;
+            this.internal = internal;
+        }
+    }
+
+    /**
+     * Watch ids a fix should go to, split by delivery mode and by whether they asked for extras,
+     * so that each group shares one payload. Watches whose filter changed the fix (e.g. smoothed
+     * it) and compact watches are listed separately with their own version. Reused for every fix.
+     */
+    static final class Route {
+        int[] immediate = new int[4];
+        int immediateCount;
+        int[] batched = new int[4];
+        int batchedCount;
+        int[] immediateExtras = new int[4];
+        int immediateExtrasCount;
+        int[] batchedExtras = new int[4];
+        int batchedExtrasCount;
+        Watch[] own = new Watch[4];
+        Location[] ownLocations = new Location[4];
+        int ownCount;
+        /**
+         * Number of watches whose filter dropped the fix.
+         */
+        int filteredCount;
+
+        private void reset() {
+            filteredCount = 0;
+            immediateCount = 0;
+            batchedCount = 0;
+            immediateExtrasCount = 0;
+            batchedExtrasCount = 0;
+            for (int i = 0; i < ownCount; i++) {
+                own[i] = null;
+                ownLocations[i] = null;
+            }
+            ownCount = 0;
+        }
+
+        private void addOwn(Watch watch, Location location) {
+            if (ownCount == own.length) {
+                Watch[] grownWatches = new Watch[own.length * 2];
+                System.arraycopy(own, 0, grownWatches, 0, own.length);
+                own = grownWatches;
+                Location[] grownLocations = new Location[ownLocations.length * 2];
+                System.arraycopy(ownLocations, 0, grownLocations, 0, ownLocations.length);
+                ownLocations = grownLocations;
+            }
+            own[ownCount] = watch;
+            ownLocations[ownCount] = location;
+            ownCount++;
+        }
+
+        private void add(Watch watch) {
+            if (watch.options.includeExtras) {
+                addExtras(watch);
+            } else if (watch.options.isBatching()) {
+                if (batchedCount == batched.length) {
+                    batched = grow(batched);
+                }
+                batched[batchedCount++] = watch.id;
+            } else {
+                if (immediateCount == immediate.length) {
+                    immediate = grow(immediate);
+                }
+                immediate[immediateCount++] = watch.id;
+            }
+        }
+
+        private void addExtras(Watch watch) {
+            if (watch.options.isBatching()) {
+                if (batchedExtrasCount == batchedExtras.length) {
+                    batchedExtras = grow(batchedExtras);
+                }
+                batchedExtras[batchedExtrasCount++] = watch.id;
+            } else {
+                if (immediateExtrasCount == immediateExtras.length) {
+                    immediateExtras = grow(immediateExtras);
+                }
+                immediateExtras[immediateExtrasCount++] = watch.id;
+            }
+        }
+
+        private static int[] grow(int[] ids) {
+            int[] grown = new int[ids.length * 2];
+            System.arraycopy(ids, 0, grown, 0, ids.length);
+            return grown;
+        }
+    }
+
+    private final Map<Integer, Watch> mWatches = new LinkedHashMap<>();
+    private int mAdaptiveCount;
+
+    /**
+     * Adds a watch, replacing any existing watch with the same id.
+     */
+    synchronized void add(int id, BaseLocationManager.LocationOptions options) {
+        put(new Watch(id, options, false));
+    }
+
+    /**
+     * Adds an internal watch, see {@link Watch#internal}.
+     */
+    synchronized void addInternal(int id, BaseLocationManager.LocationOptions options) {
+        put(new Watch(id, options, true));
+    }
+
+    private void put(Watch watch) {
+        Watch previous = mWatches.put(watch.id, watch);
+        if (previous != null && previous.options.isAdaptive()) {
+            mAdaptiveCount--;
+        }
+        if (watch.options.isAdaptive()) {
+            mAdaptiveCount++;
+        }
+    }
+
+    /**
+     * @return whether a watch with this id existed
+     */
+    synchronized boolean remove(int id) {
+        Watch watch = mWatches.remove(id);
+        if (watch != null && watch.options.isAdaptive()) {
+            mAdaptiveCount--;
+        }
+        return watch != null;
+    }
+
+    /**
+     * Removes all watches except internal ones.
+     */
+    synchronized void clear() {
+        Iterator<Watch> watches = mWatches.values().iterator();
+        while (watches.hasNext()) {
+            Watch watch = watches.next();
+            if (!watch.internal) {
+                watches.remove();
+                if (watch.options.isAdaptive()) {
+                    mAdaptiveCount--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every watch, internal ones included, into {@code other} with the same ids and
+     * options. Filters start over, since the other registry is fed by another provider.
+     */
+    synchronized void moveTo(WatchRegistry other) {
+        synchronized (other) {
+            for (Watch watch : mWatches.values()) {
+                other.put(new Watch(watch.id, watch.options, watch.internal));
+            }
+        }
+        mWatches.clear();
+        mAdaptiveCount = 0;
+    }
+
+    synchronized boolean isEmpty() {
+        return mWatches.isEmpty();
+    }
+
+    /**
+     * Whether every active watch asked for batched delivery, meaning the provider itself may hold
+     * fixes back.
+     */
+    synchronized boolean allBatching() {
+        for (Watch watch : mWatches.values()) {
+            if (!watch.options.isBatching()) {
+                return false;
+            }
+        }
+        return !mWatches.isEmpty();
+    }
+
+    /**
+     * Whether any watch adapts its sampling to the movement state.
+     */
+    synchronized boolean hasAdaptive() {
+        return mAdaptiveCount > 0;
+    }
+
+    /**
+     * The cheapest provider request that still satisfies every watch, or null without watches.
+     *
+     * @param stationary whether the device is stationary, in which case adaptive watches ask for
+     *                   their stationary options
+     */
+    @Nullable
+    synchronized BaseLocationManager.LocationOptions merged(boolean stationary) {
+        if (mWatches.isEmpty()) {
+            return null;
+        }
+        List<BaseLocationManager.LocationOptions> options = new ArrayList<>(mWatches.size());
+        for (Watch watch : mWatches.values()) {
+            options.add(stationary && watch.options.isAdaptive()
+                    ? watch.options.toStationary()
+                    : watch.options);
+        }
+        return BaseLocationManager.LocationOptions.merge(options);
+    }
+
+    /**
+     * Runs the fix through the filter of every watch and fills {@code route} with the watches
+     * that should receive it.
+     */
+    synchronized void route(Location location, Route route) {
+        route.reset();
+        for (Watch watch : mWatches.values()) {
+            if (watch.internal) {
+                continue;
+            }
+            Location filtered = watch.filter.process(location);
+            if (filtered == location && watch.encoder == null) {
+                route.add(watch);
+            } else if (filtered != null) {
+                route.addOwn(watch, filtered);
+            } else {
+                route.filteredCount++;
+            }
+        }
+    }
+}
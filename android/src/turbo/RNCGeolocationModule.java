@@ -1,11 +1,14 @@
 package com.reactnativecommunity.geolocation;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 
 public class RNCGeolocationModule extends NativeRNCGeolocationSpec {
     public static final String NAME = GeolocationModule.NAME;
@@ -22,6 +25,12 @@ public class RNCGeolocationModule extends NativeRNCGeolocationSpec {
       return GeolocationModule.NAME;
     }
 
+    @Override
+    public void invalidate() {
+      super.invalidate();
+      mImpl.invalidate();
+    }
+
     @Override
     @ReactMethod
     public void setConfiguration(ReadableMap config) {
@@ -46,6 +55,84 @@ public class RNCGeolocationModule extends NativeRNCGeolocationSpec {
       mImpl.startObserving(options);
     }
 
+    @Override
+    @ReactMethod
+    public void addWatch(double watchId, ReadableMap options) {
+      mImpl.addWatch((int) watchId, options);
+    }
+
+    @Override
+    @ReactMethod
+    public void removeWatch(double watchId) {
+      mImpl.removeWatch((int) watchId);
+    }
+
+    @Override
+    @ReactMethod
+    public void startRecording(ReadableMap options) {
+      mImpl.startRecording(options);
+    }
+
+    @Override
+    @ReactMethod
+    public void stopRecording() {
+      mImpl.stopRecording();
+    }
+
+    @Override
+    @ReactMethod
+    public void readTrack(ReadableMap query, final Callback success, final Callback error) {
+      mImpl.readTrack(query, success, error);
+    }
+
+    @Override
+    @ReactMethod
+    public void exportTrack(ReadableMap query, final Callback success, final Callback error) {
+      mImpl.exportTrack(query, success, error);
+    }
+
+    @Override
+    @ReactMethod
+    public void addGeofences(ReadableArray fences, ReadableMap options, final Callback error) {
+      mImpl.addGeofences(fences, options, error);
+    }
+
+    @Override
+    @ReactMethod
+    public void removeGeofences(ReadableArray ids) {
+      mImpl.removeGeofences(ids);
+    }
+
+    @Override
+    @ReactMethod
+    public void clearGeofences() {
+      mImpl.clearGeofences();
+    }
+
+    @Override
+    @ReactMethod
+    public void getLocationCacheStats(final Callback success) {
+      mImpl.getLocationCacheStats(success);
+    }
+
+    @Override
+    @ReactMethod
+    public void getMetrics(final Callback success) {
+      mImpl.getMetrics(success);
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public String getAuthorizationStatusSync() {
+      return mImpl.getAuthorizationStatusSync();
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public @Nullable WritableMap getLastKnownPositionSync() {
+      return mImpl.getLastKnownPositionSync();
+    }
+
     @Override
     @ReactMethod
     public void stopObserving() {
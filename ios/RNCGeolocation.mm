@@ -133,12 +133,14 @@ static NSDictionary<NSString *, id> *RNCPositionError(RNCPositionErrorCode code,
 
 @interface RNCGeolocation () <CLLocationManagerDelegate>
 
+// Written by the delegate on the main queue and read by getLastKnownPositionSync on the JS thread
+@property (atomic, copy, nullable) NSDictionary<NSString *, id> *lastLocationEvent;
+
 @end
 
 @implementation RNCGeolocation
 {
   CLLocationManager *_locationManager;
-  NSDictionary<NSString *, id> *_lastLocationEvent;
   NSMutableArray<RNCGeolocationRequest *> *_pendingRequests;
   BOOL _observingLocation;
   BOOL _usingSignificantChanges;
@@ -146,6 +148,7 @@ static NSDictionary<NSString *, id> *RNCPositionError(RNCPositionErrorCode code,
   RNCGeolocationOptions _observerOptions;
   CLAuthorizationStatus _lastUpdatedAuthorizationStatus; // used since iOS 14.0+
   NSMutableArray<NSDictionary<NSString *, RCTResponseSenderBlock>*>* _queuedAuthorizationCallbacks;
+  NSMutableDictionary<NSNumber *, NSValue *> *_watches;
 }
 
 RCT_EXPORT_MODULE()
@@ -166,7 +169,7 @@ RCT_EXPORT_MODULE()
 
 - (NSArray<NSString *> *)supportedEvents
 {
-  return @[@"geolocationDidChange", @"geolocationError"];
+  return @[@"geolocationDidChange", @"geolocationBatchDidChange", @"geolocationCompactDidChange", @"geolocationError", @"geolocationGeofenceTransition", @"geolocationMetrics", @"geolocationTileDidChange"];
 }
 
 #pragma mark - Private API
@@ -311,7 +314,7 @@ RCT_REMAP_METHOD(startObserving, startObserving:(RNCGeolocationOptions)options)
   checkLocationConfig();
     
   if (_observingLocation) {
-    [self stopObserving];
+    [self pauseObserving];
   }
 
   // Select best options
@@ -326,9 +329,9 @@ RCT_REMAP_METHOD(startObserving, startObserving:(RNCGeolocationOptions)options)
   _observingLocation = YES;
 }
 
-RCT_REMAP_METHOD(stopObserving, stopObserving)
+// Stops the observer without forgetting the watches, to restart it with other options
+- (void)pauseObserving
 {
-  // Stop observing
   _observingLocation = NO;
 
   // Stop updating if no pending requests
@@ -337,6 +340,165 @@ RCT_REMAP_METHOD(stopObserving, stopObserving)
   }
 }
 
+RCT_REMAP_METHOD(stopObserving, stopObserving)
+{
+  [_watches removeAllObjects];
+  [self pauseObserving];
+}
+
+// All watches share a single observer, configured to satisfy every one of them:
+// the best accuracy and the smallest distance filter any watch asked for, and
+// significant changes only if every watch asked for them
+- (void)observeWatches
+{
+  __block RNCGeolocationOptions merged = {};
+  __block BOOL first = YES;
+  [_watches enumerateKeysAndObjectsUsingBlock:^(NSNumber *watchId, NSValue *value, BOOL *stop) {
+    RNCGeolocationOptions options;
+    [value getValue:&options];
+    if (first) {
+      merged = options;
+      first = NO;
+      return;
+    }
+    merged.accuracy = MIN(merged.accuracy, options.accuracy);
+    merged.distanceFilter = MIN(merged.distanceFilter, options.distanceFilter);
+    merged.useSignificantChanges = merged.useSignificantChanges && options.useSignificantChanges;
+  }];
+
+  if (_observingLocation
+      && merged.accuracy == _observerOptions.accuracy
+      && merged.distanceFilter == _observerOptions.distanceFilter
+      && merged.useSignificantChanges == _observerOptions.useSignificantChanges) {
+    return;
+  }
+  [self startObserving:merged];
+}
+
+RCT_REMAP_METHOD(addWatch, addWatch:(double)watchId
+                  options:(RNCGeolocationOptions)options)
+{
+  if (!_watches) {
+    _watches = [NSMutableDictionary new];
+  }
+
+  _watches[@(watchId)] = [NSValue valueWithBytes:&options objCType:@encode(RNCGeolocationOptions)];
+  [self observeWatches];
+}
+
+RCT_REMAP_METHOD(removeWatch, removeWatch:(double)watchId)
+{
+  if (!_watches[@(watchId)]) {
+    return;
+  }
+  [_watches removeObjectForKey:@(watchId)];
+  if (_watches.count == 0) {
+    [self stopObserving];
+  } else {
+    [self observeWatches];
+  }
+}
+
+RCT_REMAP_METHOD(getLocationCacheStats, getLocationCacheStats:(RCTResponseSenderBlock)successBlock)
+{
+  // Cached positions come straight from CLLocationManager, there is no cache of our own
+  successBlock(@[@{@"hits": @0, @"misses": @0, @"size": @0}]);
+}
+
+RCT_REMAP_METHOD(getMetrics, getMetrics:(RCTResponseSenderBlock)successBlock)
+{
+  NSDictionary *histogram = @{@"count": @0, @"mean": @0, @"p50": @0, @"p90": @0, @"p99": @0, @"max": @0};
+  successBlock(@[@{
+    @"engine": @"CLLocationManager",
+    @"fixesReceived": @0,
+    @"errors": @0,
+    @"enabled": @NO,
+    @"fixesFiltered": @0,
+    @"fixesEmitted": @0,
+    @"timeouts": @0,
+    @"providerSwitches": @0,
+    @"settingsCheckFailures": @0,
+    @"providerToEmitUs": histogram,
+    @"locationToMapUs": histogram,
+    @"timeToFirstFixUs": histogram,
+    @"providers": @{},
+  }]);
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getAuthorizationStatusSync)
+{
+  // This runs on the JS thread, where no CLLocationManager may be created, so the status comes
+  // from the class and the accuracy from the manager the main queue created, if there is one
+#pragma clang diagnostic push
+#pragma clang diagnostic ignored "-Wdeprecated-declarations"
+  CLAuthorizationStatus status = [CLLocationManager authorizationStatus];
+#pragma clang diagnostic pop
+  if (@available(iOS 14.0, *)) {
+    CLLocationManager *locationManager = _locationManager;
+    if ((status == kCLAuthorizationStatusAuthorizedWhenInUse
+#if !TARGET_OS_VISION
+         || status == kCLAuthorizationStatusAuthorizedAlways
+#endif
+        ) && locationManager.accuracyAuthorization == CLAccuracyAuthorizationReducedAccuracy) {
+      return @"approximate";
+    }
+  }
+
+  switch (status) {
+    case kCLAuthorizationStatusNotDetermined:
+      return @"undetermined";
+    case kCLAuthorizationStatusRestricted:
+    case kCLAuthorizationStatusDenied:
+      return @"denied";
+    default:
+      return @"granted";
+  }
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getLastKnownPositionSync)
+{
+  NSDictionary<NSString *, id> *lastLocationEvent = self.lastLocationEvent;
+  return lastLocationEvent ?: (id)kCFNull;
+}
+
+RCT_REMAP_METHOD(startRecording, startRecording:(RNCGeolocationOptions)options)
+{
+  RCTLogWarn(@"%@.startRecording is not supported on iOS.", [self class]);
+}
+
+RCT_REMAP_METHOD(stopRecording, stopRecording)
+{
+}
+
+RCT_REMAP_METHOD(readTrack, readTrack:(NSDictionary *)query
+                  success:(RCTResponseSenderBlock)successBlock
+                  error:(RCTResponseSenderBlock)errorBlock)
+{
+  errorBlock(@[RNCPositionError(RNCPositionErrorUnavailable, @"Track recording is not supported on iOS")]);
+}
+
+RCT_REMAP_METHOD(addGeofences, addGeofences:(NSArray *)fences
+                  options:(RNCGeolocationOptions)options
+                  error:(RCTResponseSenderBlock)errorBlock)
+{
+  errorBlock(@[RNCPositionError(RNCPositionErrorUnavailable, @"Geofencing is not supported on iOS")]);
+}
+
+RCT_REMAP_METHOD(removeGeofences, removeGeofences:(NSArray *)ids)
+{
+}
+
+RCT_REMAP_METHOD(clearGeofences, clearGeofences)
+{
+}
+
+RCT_REMAP_METHOD(exportTrack, exportTrack:(NSDictionary *)query
+                  success:(RCTResponseSenderBlock)successBlock
+                  error:(RCTResponseSenderBlock)errorBlock)
+{
+  errorBlock(@[RNCPositionError(RNCPositionErrorUnavailable, @"Track recording is not supported on iOS")]);
+}
+
 RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)options
                   position:(RCTResponseSenderBlock)successBlock
                   error:(RCTResponseSenderBlock)errorBlock)
@@ -373,17 +535,18 @@ RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)o
   }
 
   // Check if previous recorded location exists and is good enough
-  if (_lastLocationEvent &&
-      [NSDate date].timeIntervalSince1970 - [RCTConvert NSTimeInterval:_lastLocationEvent[@"timestamp"]] < options.maximumAge &&
-      [_lastLocationEvent[@"coords"][@"accuracy"] doubleValue] <= options.accuracy) {
+  NSDictionary<NSString *, id> *lastLocationEvent = self.lastLocationEvent;
+  if (lastLocationEvent &&
+      [NSDate date].timeIntervalSince1970 - [RCTConvert NSTimeInterval:lastLocationEvent[@"timestamp"]] < options.maximumAge &&
+      [lastLocationEvent[@"coords"][@"accuracy"] doubleValue] <= options.accuracy) {
     // Call success block with most recent known location
-    successBlock(@[_lastLocationEvent]);
+    successBlock(@[lastLocationEvent]);
     return;
   }
     
   BOOL didPause = NO;
   if (_observingLocation) {
-    [self stopObserving];
+    [self pauseObserving];
     didPause = YES;
   }
 
@@ -412,7 +575,7 @@ RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)o
                           useSignificantChanges:options.useSignificantChanges];
 
   if (didPause) {
-    [self startObserving];
+    [self startObserving:_observerOptions];
   }
 }
 
@@ -429,7 +592,7 @@ RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)o
     mocked = location.sourceInformation.isSimulatedBySoftware;
   }
 
-  _lastLocationEvent = @{
+  NSDictionary<NSString *, id> *lastLocationEvent = @{
                          @"mocked": @(mocked),
                          @"coords": @{
                              @"latitude": @(location.coordinate.latitude),
@@ -442,15 +605,16 @@ RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)o
                              },
                          @"timestamp": @([location.timestamp timeIntervalSince1970] * 1000) // in ms
                          };
+  self.lastLocationEvent = lastLocationEvent;
 
   // Send event
   if (_observingLocation) {
-    [self sendEventWithName:@"geolocationDidChange" body:_lastLocationEvent];
+    [self sendEventWithName:@"geolocationDidChange" body:lastLocationEvent];
   }
 
   // Fire all queued callbacks
   for (RNCGeolocationRequest *request in _pendingRequests) {
-    request.successBlock(@[_lastLocationEvent]);
+    request.successBlock(@[lastLocationEvent]);
     [request.timeoutTimer invalidate];
   }
   [_pendingRequests removeAllObjects];
@@ -13,13 +13,26 @@ import { NativeModules } from 'react-native';
 
 // Mock the RNCGeolocation native module to allow us to unit test the JavaScript code
 NativeModules.RNCGeolocation = {
+  addGeofences: jest.fn(),
   addListener: jest.fn(),
+  addWatch: jest.fn(),
+  clearGeofences: jest.fn(),
+  exportTrack: jest.fn(),
+  getAuthorizationStatusSync: jest.fn(),
   getCurrentPosition: jest.fn(),
+  getLastKnownPositionSync: jest.fn(),
+  getLocationCacheStats: jest.fn(),
+  getMetrics: jest.fn(),
+  readTrack: jest.fn(),
+  removeGeofences: jest.fn(),
   removeListeners: jest.fn(),
+  removeWatch: jest.fn(),
   requestAuthorization: jest.fn(),
   setConfiguration: jest.fn(),
   startObserving: jest.fn(),
+  startRecording: jest.fn(),
   stopObserving: jest.fn(),
+  stopRecording: jest.fn(),
 };
 
 // Reset the mocks before each test
@@ -4,18 +4,44 @@ import { TurboModuleRegistry } from 'react-native';
 export type GeolocationConfiguration = {
   skipPermissionRequests: boolean;
   authorizationLevel?: 'always' | 'whenInUse' | 'auto';
-  locationProvider?: 'playServices' | 'android' | 'auto';
+  locationProvider?: 'playServices' | 'android' | 'replay' | 'auto';
   enableBackgroundLocationUpdates?: boolean;
+  replayTrack?: string;
+  replaySpeed?: number;
+  replayLoop?: boolean;
+  enableMetrics?: boolean;
+  metricsInterval?: number;
+  geohashPrecision?: number;
+  tileZoom?: number;
 };
 
+/**
+ * On iOS, all watches share a single location manager, which runs with the
+ * best `enableHighAccuracy`, the smallest `distanceFilter`, and
+ * `useSignificantChanges` only if every watch asked for it. Every watch then
+ * receives every location: the interval, filter and batching options only
+ * apply per watch on Android.
+ */
 export type GeolocationOptions = {
   timeout?: number;
   maximumAge?: number;
   enableHighAccuracy?: boolean;
+  accuracy?: 'high' | 'balanced' | 'low' | 'passive';
   distanceFilter?: number;
   useSignificantChanges?: boolean;
   interval?: number;
   fastestInterval?: number;
+  stationaryInterval?: number;
+  maxAccuracy?: number;
+  maxSpeed?: number;
+  smoothing?: boolean;
+  maxBatchSize?: number;
+  maxBatchDelayMs?: number;
+  includeExtras?: boolean;
+  compact?: boolean;
+  race?: boolean;
+  desiredAccuracy?: number;
+  softDeadline?: number;
 };
 
 export type GeolocationResponse = {
@@ -29,6 +55,8 @@ export type GeolocationResponse = {
     speed: number | null;
   };
   timestamp: number;
+  geohash?: string;
+  quadkey?: string;
 };
 
 export type GeolocationError = {
@@ -39,6 +67,121 @@ export type GeolocationError = {
   TIMEOUT: number;
 };
 
+/**
+ * A circle (`latitude`, `longitude` and `radius` in meters) or a `polygon`.
+ * `dwellTime` (ms) enables `dwell` transitions.
+ */
+export type Geofence = {
+  id: string;
+  latitude?: number;
+  longitude?: number;
+  radius?: number;
+  polygon?: { latitude: number; longitude: number }[];
+  dwellTime?: number;
+};
+
+export type GeofenceTransition = GeolocationResponse & {
+  geofenceId: string;
+  transition: 'enter' | 'exit' | 'dwell';
+};
+
+export type TileChange = GeolocationResponse & {
+  previousGeohash?: string;
+  previousQuadkey?: string;
+};
+
+export type TrackQuery = {
+  from?: number;
+  to?: number;
+  cursor?: number;
+  limit?: number;
+};
+
+export type TrackPage = {
+  positions: GeolocationResponse[];
+  cursor: number | null;
+};
+
+/**
+ * Recorded locations packed by the native module: `data` is a base64 encoded
+ * buffer of little-endian doubles holding the latitude, longitude, altitude,
+ * accuracy, heading, speed and timestamp columns, `count` values each.
+ */
+export type PackedTrack = {
+  count: number;
+  data: string;
+  cursor: number | null;
+};
+
+export type TrackExport = {
+  count: number;
+  cursor: number | null;
+  columns: {
+    latitude: Float64Array;
+    longitude: Float64Array;
+    altitude: Float64Array;
+    accuracy: Float64Array;
+    heading: Float64Array;
+    speed: Float64Array;
+    timestamp: Float64Array;
+  };
+};
+
+/**
+ * `undetermined` is only reported on iOS, Android cannot tell whether
+ * permissions were never requested or denied.
+ */
+export type AuthorizationStatus =
+  | 'granted'
+  | 'approximate'
+  | 'denied'
+  | 'undetermined';
+
+export type LocationCacheStats = {
+  hits: number;
+  misses: number;
+  size: number;
+};
+
+/**
+ * Percentiles are upper bounds, precise to a factor of two.
+ */
+export type LatencyHistogram = {
+  count: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+};
+
+/**
+ * How a platform provider has been answering `getCurrentPosition`, as moving
+ * averages.
+ */
+export type ProviderHealth = {
+  attempts: number;
+  timeoutRate: number;
+  timeToFirstFixMs: number;
+  accuracy: number;
+};
+
+export type GeolocationMetrics = {
+  engine: string;
+  fixesReceived: number;
+  errors: number;
+  enabled: boolean;
+  fixesFiltered: number;
+  fixesEmitted: number;
+  timeouts: number;
+  providerSwitches: number;
+  settingsCheckFailures: number;
+  providerToEmitUs: LatencyHistogram;
+  locationToMapUs: LatencyHistogram;
+  timeToFirstFixUs: LatencyHistogram;
+  providers: { [provider: string]: ProviderHealth };
+};
+
 export interface Spec extends TurboModule {
   setConfiguration(config: {
     skipPermissionRequests: boolean;
@@ -56,6 +199,31 @@ export interface Spec extends TurboModule {
   ): void;
   startObserving(options: GeolocationOptions): void;
   stopObserving(): void;
+  addWatch(watchId: number, options: GeolocationOptions): void;
+  removeWatch(watchId: number): void;
+  getAuthorizationStatusSync(): string;
+  getLastKnownPositionSync(): GeolocationResponse | null;
+  getLocationCacheStats(success: (stats: LocationCacheStats) => void): void;
+  getMetrics(success: (metrics: GeolocationMetrics) => void): void;
+  startRecording(options: GeolocationOptions): void;
+  stopRecording(): void;
+  readTrack(
+    query: TrackQuery,
+    success: (page: TrackPage) => void,
+    error: (error: GeolocationError) => void
+  ): void;
+  addGeofences(
+    fences: Geofence[],
+    options: GeolocationOptions,
+    error: (error: GeolocationError) => void
+  ): void;
+  removeGeofences(ids: string[]): void;
+  clearGeofences(): void;
+  exportTrack(
+    query: TrackQuery,
+    success: (track: PackedTrack) => void,
+    error: (error: GeolocationError) => void
+  ): void;
 
   // RCTEventEmitter
   addListener: (eventName: string) => void;
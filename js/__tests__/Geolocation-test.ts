@@ -9,6 +9,7 @@
 
 import { NativeModules } from 'react-native';
 import Geolocation from '../';
+import GeolocationNativeInterface from '../nativeInterface';
 
 jest.mock('../utils', () => {
   return {
@@ -30,6 +31,17 @@ describe('react-native-geolocation', () => {
     ).toEqual(1);
   });
 
+  it('should pass background location updates through to native', () => {
+    Geolocation.setRNConfiguration({
+      skipPermissionRequests: false,
+      enableBackgroundLocationUpdates: true,
+    });
+    const calls = NativeModules.RNCGeolocation.setConfiguration.mock.calls;
+    expect(calls[calls.length - 1][0]).toMatchObject({
+      enableBackgroundLocationUpdates: true,
+    });
+  });
+
   it('should request authorization for location requests', () => {
     Geolocation.requestAuthorization();
     expect(
@@ -37,6 +49,13 @@ describe('react-native-geolocation', () => {
     ).toEqual(1);
   });
 
+  it('should return the authorization status synchronously', () => {
+    NativeModules.RNCGeolocation.getAuthorizationStatusSync.mockReturnValue(
+      'approximate'
+    );
+    expect(Geolocation.getAuthorizationStatusSync()).toBe('approximate');
+  });
+
   it('should get the current position and pass it to the given callback', () => {
     const callback = () => {};
     Geolocation.getCurrentPosition(callback);
@@ -56,17 +75,295 @@ describe('react-native-geolocation', () => {
     );
   });
 
+  it('should pass the passive accuracy mode on to the native module', () => {
+    const watchID = Geolocation.watchPosition(() => {}, () => {}, {
+      accuracy: 'passive',
+    });
+    expect(NativeModules.RNCGeolocation.addWatch.mock.calls).toEqual([
+      [watchID, { accuracy: 'passive' }],
+    ]);
+    Geolocation.clearWatch(watchID);
+  });
+
+  it('should pass the racing options on to the native module', () => {
+    const options = { race: true, desiredAccuracy: 25, softDeadline: 3000 };
+    Geolocation.getCurrentPosition(() => {}, () => {}, options);
+    expect(
+      NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0][0]
+    ).toEqual(options);
+  });
+
   it('should add an error listener to the geolocation', () => {
-    const watchID = Geolocation.watchPosition(
+    Geolocation.watchPosition(
       () => {},
       () => {}
     );
-    expect(watchID).toEqual(1000);
     expect(NativeModules.RNCGeolocation.addListener.mock.calls[1][0]).toBe(
       'geolocationError'
     );
   });
 
+  it('should not reuse the id of a cleared watch', () => {
+    const first = Geolocation.watchPosition(() => {});
+    const second = Geolocation.watchPosition(() => {});
+    Geolocation.clearWatch(second);
+    const third = Geolocation.watchPosition(() => {});
+    expect(second).toBeGreaterThan(first);
+    expect(third).toBeGreaterThan(second);
+
+    Geolocation.stopObserving();
+    expect(Geolocation.watchPosition(() => {})).toBeGreaterThan(third);
+  });
+
+  it('should register every watch natively with its own options', () => {
+    const watchID = Geolocation.watchPosition(() => {}, () => {}, {
+      interval: 1000,
+    });
+    Geolocation.watchPosition(() => {}, () => {}, { interval: 60000 });
+    expect(NativeModules.RNCGeolocation.addWatch.mock.calls).toEqual([
+      [watchID, { interval: 1000 }],
+      [watchID + 1, { interval: 60000 }],
+    ]);
+    Geolocation.clearWatch(watchID);
+    expect(NativeModules.RNCGeolocation.removeWatch.mock.calls).toEqual([
+      [watchID],
+    ]);
+  });
+
+  it('should only deliver positions to the watches they are meant for', () => {
+    const first = jest.fn();
+    const second = jest.fn();
+    const firstID = Geolocation.watchPosition(first);
+    Geolocation.watchPosition(second);
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationDidChange',
+      { timestamp: 1, watchIds: [firstID] }
+    );
+    expect(first.mock.calls.length).toBe(1);
+    expect(second.mock.calls.length).toBe(0);
+  });
+
+  it('should invoke the success callback for every location in a batch', () => {
+    const success = jest.fn();
+    Geolocation.watchPosition(success, () => {}, { maxBatchSize: 2 });
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationBatchDidChange',
+      [{ timestamp: 1 }, { timestamp: 2 }]
+    );
+    expect(success.mock.calls.length).toBe(2);
+    expect(success.mock.calls[1][0]).toEqual({ timestamp: 2 });
+  });
+
+  it('should decode compact positions from their keyframe', () => {
+    const success = jest.fn();
+    const watchID = Geolocation.watchPosition(success, () => {}, {
+      compact: true,
+    });
+    const emit = (payload: number[]) =>
+      GeolocationNativeInterface.GeolocationEventEmitter.emit(
+        'geolocationCompactDidChange',
+        payload
+      );
+    // deltas before the first keyframe and payloads of other watches are dropped
+    emit([watchID, 0, 10, 10, 0, 0, 0, 0, 1000, 0]);
+    emit([watchID + 1, 1, 1, 1, 0, 0, 0, 0, 1, 0]);
+    emit([watchID, 1, 525000000, 134000000, 3450, 500, 9000, 150, 1000, 0]);
+    emit([watchID, 0, 10, -20, 0, -100, 0, 50, 1000, 1]);
+    expect(success.mock.calls.map(([position]) => position)).toEqual([
+      {
+        coords: {
+          latitude: 52.5,
+          longitude: 13.4,
+          altitude: 34.5,
+          accuracy: 5,
+          altitudeAccuracy: null,
+          heading: 90,
+          speed: 1.5,
+        },
+        timestamp: 1000,
+        mocked: false,
+      },
+      {
+        coords: {
+          latitude: 52.500001,
+          longitude: 13.399998,
+          altitude: 34.5,
+          accuracy: 4,
+          altitudeAccuracy: null,
+          heading: 90,
+          speed: 2,
+        },
+        timestamp: 2000,
+        mocked: true,
+      },
+    ]);
+  });
+
+  it('should deliver batches to compact watches', () => {
+    const success = jest.fn();
+    const watchID = Geolocation.watchPosition(success, () => {}, {
+      compact: true,
+    });
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationBatchDidChange',
+      [
+        { timestamp: 1, watchIds: [watchID] },
+        { timestamp: 2, watchIds: [watchID + 1] },
+      ]
+    );
+    expect(success.mock.calls).toEqual([
+      [{ timestamp: 1, watchIds: [watchID] }],
+    ]);
+  });
+
+  it('should start and stop recording natively', () => {
+    Geolocation.startRecording();
+    Geolocation.stopRecording();
+    expect(NativeModules.RNCGeolocation.startRecording.mock.calls).toEqual([
+      [{}],
+    ]);
+    expect(NativeModules.RNCGeolocation.stopRecording.mock.calls.length).toBe(
+      1
+    );
+  });
+
+  it('should read recorded tracks page by page', () => {
+    const success = jest.fn();
+    const error = jest.fn();
+    Geolocation.readTrack(success, error, { cursor: 1000, limit: 500 });
+    const [query, onPage, onError] =
+      NativeModules.RNCGeolocation.readTrack.mock.calls[0];
+    expect(query).toEqual({ cursor: 1000, limit: 500 });
+    const page = { positions: [{ timestamp: 1 }], cursor: null };
+    onPage(page);
+    expect(success).toHaveBeenCalledWith(page);
+    expect(onError).toBe(error);
+  });
+
+  it('should unpack exported tracks into one typed array per field', () => {
+    const success = jest.fn();
+    Geolocation.exportTrack(success, () => {}, { limit: 2 });
+    const [query, onTrack] =
+      NativeModules.RNCGeolocation.exportTrack.mock.calls[0];
+    expect(query).toEqual({ limit: 2 });
+
+    const values = new Float64Array([
+      ...[48.1, 48.2],
+      ...[11.5, 11.6],
+      ...[520, 521],
+      ...[5, 6],
+      ...[90, 91],
+      ...[1.5, 1.6],
+      ...[1000, 2000],
+    ]);
+    const data = Buffer.from(values.buffer).toString('base64');
+    onTrack({ count: 2, data, cursor: 2 });
+
+    const { count, cursor, columns } = success.mock.calls[0][0];
+    expect(count).toBe(2);
+    expect(cursor).toBe(2);
+    expect(Array.from(columns.latitude)).toEqual([48.1, 48.2]);
+    expect(Array.from(columns.longitude)).toEqual([11.5, 11.6]);
+    expect(Array.from(columns.speed)).toEqual([1.5, 1.6]);
+    expect(Array.from(columns.timestamp)).toEqual([1000, 2000]);
+  });
+
+  it('should monitor geofences natively and deliver transitions', () => {
+    const fences = [
+      { id: 'home', latitude: 52.23, longitude: 21.01, radius: 100 },
+    ];
+    Geolocation.addGeofences(fences);
+    expect(NativeModules.RNCGeolocation.addGeofences.mock.calls[0][0]).toBe(
+      fences
+    );
+
+    const listener = jest.fn();
+    const subscription = Geolocation.watchGeofences(listener);
+    const transition = { geofenceId: 'home', transition: 'enter' };
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationGeofenceTransition',
+      transition
+    );
+    subscription.remove();
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationGeofenceTransition',
+      transition
+    );
+    expect(listener.mock.calls).toEqual([[transition]]);
+
+    Geolocation.removeGeofences(['home']);
+    expect(NativeModules.RNCGeolocation.removeGeofences.mock.calls).toEqual([
+      [['home']],
+    ]);
+  });
+
+  it('should deliver tile changes until removed', () => {
+    const listener = jest.fn();
+    const subscription = Geolocation.watchTiles(listener);
+    const change = {
+      coords: { latitude: 52.2297, longitude: 21.0122 },
+      timestamp: 1000,
+      geohash: 'u3qcnhzch',
+      previousGeohash: 'u3qcnhzcf',
+    };
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationTileDidChange',
+      change
+    );
+    expect(listener).toHaveBeenCalledWith(change);
+    subscription.remove();
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationTileDidChange',
+      change
+    );
+    expect(listener).toHaveBeenCalledTimes(1);
+  });
+
+  it('should return the last known position synchronously', () => {
+    const position = { coords: { latitude: 1, longitude: 2 }, timestamp: 3 };
+    NativeModules.RNCGeolocation.getLastKnownPositionSync.mockReturnValue(
+      position
+    );
+    expect(Geolocation.getLastKnownPositionSync()).toBe(position);
+  });
+
+  it('should forward the location cache stats from the native module', () => {
+    const success = jest.fn();
+    Geolocation.getLocationCacheStats(success);
+    expect(
+      NativeModules.RNCGeolocation.getLocationCacheStats.mock.calls.length
+    ).toBe(1);
+    const stats = { hits: 2, misses: 1, size: 1 };
+    NativeModules.RNCGeolocation.getLocationCacheStats.mock.calls[0][0](stats);
+    expect(success).toHaveBeenCalledWith(stats);
+  });
+
+  it('should pass the native metrics through', () => {
+    const success = jest.fn();
+    Geolocation.getMetrics(success);
+    expect(NativeModules.RNCGeolocation.getMetrics.mock.calls.length).toBe(1);
+    const metrics = { engine: 'android', fixesReceived: 3, errors: 0 };
+    NativeModules.RNCGeolocation.getMetrics.mock.calls[0][0](metrics);
+    expect(success).toHaveBeenCalledWith(metrics);
+  });
+
+  it('should deliver periodic metrics until removed', () => {
+    const listener = jest.fn();
+    const subscription = Geolocation.watchMetrics(listener);
+    const metrics = { engine: 'android', fixesReceived: 3, errors: 0 };
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationMetrics',
+      metrics
+    );
+    expect(listener).toHaveBeenCalledWith(metrics);
+    subscription.remove();
+    GeolocationNativeInterface.GeolocationEventEmitter.emit(
+      'geolocationMetrics',
+      metrics
+    );
+    expect(listener).toHaveBeenCalledTimes(1);
+  });
+
   it('should clear the listeners associated with a watchID', () => {
     const watchID = Geolocation.watchPosition(
       () => {},
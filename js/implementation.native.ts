@@ -7,26 +7,96 @@
  * @format
  */
 
+import { Platform } from 'react-native';
 import type { EmitterSubscription } from 'react-native';
 
 import GeolocationNativeInterface from './nativeInterface';
 
 import invariant from 'invariant';
 import { logError, warning } from './utils';
+import { unpackTrack } from './trackBuffer';
 
 import type {
   GeolocationOptions,
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  AuthorizationStatus,
+  LocationCacheStats,
+  GeolocationMetrics,
+  TrackQuery,
+  TrackPage,
+  TrackExport,
+  Geofence,
+  GeofenceTransition,
+  TileChange,
 } from './NativeRNCGeolocation';
 
 const { RNCGeolocation, GeolocationEventEmitter } = GeolocationNativeInterface;
 
+/**
+ * Positions emitted for watches carry the ids of the watches they are meant
+ * for. Positions without `watchIds` are meant for every watch.
+ */
+type WatchedPosition = GeolocationResponse & { watchIds?: number[] };
+
+/**
+ * Fixed-point scales of the `compact` payload fields, in the order they are
+ * sent after the watch id and keyframe flag.
+ */
+const COMPACT_SCALES = [1e7, 1e7, 100, 100, 100, 100, 1, 1];
+
+/**
+ * Turns the `compact` payloads of one watch back into positions. Payloads are
+ * deltas to the previous fix, so everything before the first keyframe is
+ * dropped.
+ */
+function compactDecoder(
+  watchID: number,
+  success: (position: GeolocationResponse) => void
+) {
+  const values: number[] = [];
+  let synced = false;
+  return (payload: number[]) => {
+    const keyframe = payload[1] === 1;
+    if (payload[0] !== watchID || (!keyframe && !synced)) {
+      return;
+    }
+    synced = true;
+    for (let i = 0; i < COMPACT_SCALES.length; i++) {
+      values[i] = keyframe ? payload[i + 2] : values[i] + payload[i + 2];
+    }
+    const position: GeolocationResponse & { mocked: boolean } = {
+      coords: {
+        latitude: values[0] / COMPACT_SCALES[0],
+        longitude: values[1] / COMPACT_SCALES[1],
+        altitude: values[2] / COMPACT_SCALES[2],
+        accuracy: values[3] / COMPACT_SCALES[3],
+        altitudeAccuracy: null,
+        heading: values[4] / COMPACT_SCALES[4],
+        speed: values[5] / COMPACT_SCALES[5],
+      },
+      timestamp: values[6],
+      mocked: values[7] === 1,
+    };
+    success(position);
+  };
+}
+
 let subscriptions: {
-  [key: number]: [EmitterSubscription, EmitterSubscription | null];
+  [key: number]: [
+    EmitterSubscription,
+    EmitterSubscription | null,
+    EmitterSubscription,
+    EmitterSubscription | null,
+  ];
 } = {};
 let updatesEnabled = false;
+/**
+ * Watch ids are never reused, so that a late event or a stale `clearWatch`
+ * meant for a cleared watch cannot reach a newer one.
+ */
+let nextWatchID = 1000;
 
 /**
  * The Geolocation API extends the web spec:
@@ -44,8 +114,9 @@ let updatesEnabled = false;
 export function setRNConfiguration(config: GeolocationConfiguration) {
   RNCGeolocation.setConfiguration({
     ...config,
+    // On Android this runs a foreground service, so it has to be asked for
     enableBackgroundLocationUpdates:
-      config?.enableBackgroundLocationUpdates ?? true,
+      config?.enableBackgroundLocationUpdates ?? Platform.OS === 'ios',
     authorizationLevel:
       config?.authorizationLevel === 'auto'
         ? undefined
@@ -67,6 +138,14 @@ export function requestAuthorization(
   RNCGeolocation.requestAuthorization(success, error);
 }
 
+/*
+ * Reports whether the app may use locations, from the native permission
+ * cache and without a round trip through a callback.
+ */
+export function getAuthorizationStatusSync(): AuthorizationStatus {
+  return RNCGeolocation.getAuthorizationStatusSync() as AuthorizationStatus;
+}
+
 /*
  * Invokes the success callback once with the latest location info.
  *
@@ -85,6 +164,140 @@ export async function getCurrentPosition(
   RNCGeolocation.getCurrentPosition(options, success, error);
 }
 
+/*
+ * Returns the most recent location the native module has seen, or null,
+ * without a round trip through a callback.
+ */
+export function getLastKnownPositionSync(): GeolocationResponse | null {
+  return RNCGeolocation.getLastKnownPositionSync();
+}
+
+/*
+ * Invokes the success callback with the hit and miss counts of the native
+ * location cache that answers `maximumAge` checks.
+ */
+export function getLocationCacheStats(
+  success: (stats: LocationCacheStats) => void
+) {
+  RNCGeolocation.getLocationCacheStats(success);
+}
+
+/*
+ * Reports the native pipeline metrics. Counters and histograms other than
+ * `fixesReceived` and `errors` stay at 0 unless `enableMetrics` is configured.
+ */
+export function getMetrics(success: (metrics: GeolocationMetrics) => void) {
+  RNCGeolocation.getMetrics(success);
+}
+
+/*
+ * Invokes the listener with the metrics every `metricsInterval` ms.
+ */
+export function watchMetrics(
+  listener: (metrics: GeolocationMetrics) => void
+): EmitterSubscription {
+  return GeolocationEventEmitter.addListener('geolocationMetrics', listener);
+}
+
+/*
+ * Starts recording every location update to a native on-device log, which
+ * keeps going while JS is not listening.
+ */
+export function startRecording(options: GeolocationOptions = {}) {
+  // Permission checks/requests are done on the native side
+  RNCGeolocation.startRecording(options);
+}
+
+/*
+ * Stops recording location updates. The recorded track is kept.
+ */
+export function stopRecording() {
+  RNCGeolocation.stopRecording();
+}
+
+/*
+ * Invokes the success callback with a page of recorded locations. Pass the
+ * returned `cursor` back in to read the next page, until it is null.
+ */
+export function readTrack(
+  success: (page: TrackPage) => void,
+  error: (error: GeolocationError) => void = logError,
+  query: TrackQuery = {}
+) {
+  RNCGeolocation.readTrack(query, success, error);
+}
+
+/*
+ * Invokes the success callback with recorded locations in bulk, as one typed
+ * array per field instead of one object per location. Pass the returned
+ * `cursor` back in to export the next chunk, until it is null.
+ */
+export function exportTrack(
+  success: (track: TrackExport) => void,
+  error: (error: GeolocationError) => void = logError,
+  query: TrackQuery = {}
+) {
+  RNCGeolocation.exportTrack(
+    query,
+    (track) => success(unpackTrack(track)),
+    error
+  );
+}
+
+/*
+ * Starts monitoring the given geofences natively, in addition to those already
+ * monitored. Fixes are tested against them whether or not JS is watching the
+ * location, and only transitions are sent to JS (see `watchGeofences`).
+ */
+export function addGeofences(
+  fences: Geofence[],
+  error: (error: GeolocationError) => void = logError,
+  options: GeolocationOptions = {}
+) {
+  // Permission checks/requests are done on the native side
+  RNCGeolocation.addGeofences(fences, options, error);
+}
+
+/*
+ * Stops monitoring the geofences with the given ids.
+ */
+export function removeGeofences(ids: string[]) {
+  RNCGeolocation.removeGeofences(ids);
+}
+
+/*
+ * Stops monitoring all geofences.
+ */
+export function clearGeofences() {
+  RNCGeolocation.clearGeofences();
+}
+
+/*
+ * Invokes the listener whenever the device enters, leaves or dwells in a
+ * monitored geofence.
+ */
+export function watchGeofences(
+  listener: (transition: GeofenceTransition) => void
+): EmitterSubscription {
+  return GeolocationEventEmitter.addListener(
+    'geolocationGeofenceTransition',
+    listener
+  );
+}
+
+/*
+ * Invokes the listener whenever a watched location is in another geohash cell
+ * or tile than the previous one, see `geohashPrecision` and `tileZoom`.
+ */
+export function watchTiles(
+  listener: (change: TileChange) => void
+): EmitterSubscription {
+  return GeolocationEventEmitter.addListener(
+    'geolocationTileDidChange',
+    listener
+  );
+}
+
 /*
  * Invokes the success callback whenever the location changes.
  *
@@ -95,17 +308,33 @@ export function watchPosition(
   error: (error: GeolocationError) => void = logError,
   options: GeolocationOptions = {}
 ): number {
-  if (!updatesEnabled) {
-    RNCGeolocation.startObserving(options);
-    updatesEnabled = true;
-  }
-  const watchID = Object.keys(subscriptions).length + 1000;
+  const watchID = nextWatchID++;
+  const onPosition = (position: WatchedPosition) => {
+    if (!position.watchIds || position.watchIds.includes(watchID)) {
+      success(position);
+    }
+  };
   subscriptions[watchID] = [
-    GeolocationEventEmitter.addListener('geolocationDidChange', success),
+    GeolocationEventEmitter.addListener('geolocationDidChange', onPosition),
     error
       ? GeolocationEventEmitter.addListener('geolocationError', error)
       : null,
+    // Batched delivery (`maxBatchSize` / `maxBatchDelayMs`) and fixes held back
+    // in the background send several fixes per event
+    GeolocationEventEmitter.addListener(
+      'geolocationBatchDidChange',
+      (positions: WatchedPosition[]) => positions.forEach(onPosition)
+    ),
+    options.compact
+      ? GeolocationEventEmitter.addListener(
+          'geolocationCompactDidChange',
+          compactDecoder(watchID, success)
+        )
+      : null,
   ];
+  // Every watch is registered natively with its own options
+  RNCGeolocation.addWatch(watchID, options);
+  updatesEnabled = true;
   return watchID;
 }
 
@@ -126,7 +355,11 @@ export function clearWatch(watchID: number) {
   // array element refinements not yet enabled in Flow
   const sub1 = sub[1];
   sub1 && sub1.remove();
+  sub[2].remove();
+  const sub3 = sub[3];
+  sub3 && sub3.remove();
 
+  RNCGeolocation.removeWatch(watchID);
   delete subscriptions[watchID];
   let noWatchers = Object.keys(subscriptions).length === 0;
   if (noWatchers) {
@@ -143,10 +376,12 @@ export function stopObserving() {
   if (updatesEnabled) {
     RNCGeolocation.stopObserving();
     updatesEnabled = false;
-    Object.values(subscriptions).forEach(([sub, sub1]) => {
+    Object.values(subscriptions).forEach(([sub, sub1, sub2, sub3]) => {
       warning(false, 'Called stopObserving with existing subscriptions.');
       sub.remove();
       sub1 && sub1.remove();
+      sub2.remove();
+      sub3 && sub3.remove();
     });
     subscriptions = {};
   }
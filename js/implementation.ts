@@ -12,6 +12,15 @@ import type {
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  AuthorizationStatus,
+  LocationCacheStats,
+  GeolocationMetrics,
+  TrackQuery,
+  TrackPage,
+  TrackExport,
+  Geofence,
+  GeofenceTransition,
+  TileChange,
 } from './NativeRNCGeolocation';
 
 export function setRNConfiguration(_config: GeolocationConfiguration) {
@@ -25,6 +34,10 @@ export function requestAuthorization(
   throw new Error('requestAuthorization is not supported by the browser');
 }
 
+export function getAuthorizationStatusSync(): AuthorizationStatus {
+  throw new Error('getAuthorizationStatusSync is not supported by the browser');
+}
+
 export async function getCurrentPosition(
   success: (position: GeolocationResponse) => void,
   error?: (error: GeolocationError) => void,
@@ -39,6 +52,78 @@ export async function getCurrentPosition(
   navigator.geolocation.getCurrentPosition(success, error, options);
 }
 
+export function getLocationCacheStats(
+  _success: (stats: LocationCacheStats) => void
+) {
+  throw new Error('getLocationCacheStats is not supported by the browser');
+}
+
+export function getMetrics(_success: (metrics: GeolocationMetrics) => void) {
+  throw new Error('getMetrics is not supported by the browser');
+}
+
+export function watchMetrics(
+  _listener: (metrics: GeolocationMetrics) => void
+): { remove: () => void } {
+  throw new Error('watchMetrics is not supported by the browser');
+}
+
+export function startRecording(_options?: GeolocationOptions) {
+  throw new Error('startRecording is not supported by the browser');
+}
+
+export function stopRecording() {
+  throw new Error('stopRecording is not supported by the browser');
+}
+
+export function getLastKnownPositionSync(): GeolocationResponse | null {
+  throw new Error('getLastKnownPositionSync is not supported by the browser');
+}
+
+export function readTrack(
+  _success: (page: TrackPage) => void,
+  _error?: (error: GeolocationError) => void,
+  _query?: TrackQuery
+) {
+  throw new Error('readTrack is not supported by the browser');
+}
+
+export function exportTrack(
+  _success: (track: TrackExport) => void,
+  _error?: (error: GeolocationError) => void,
+  _query?: TrackQuery
+) {
+  throw new Error('exportTrack is not supported by the browser');
+}
+
+export function addGeofences(
+  _fences: Geofence[],
+  _error?: (error: GeolocationError) => void,
+  _options?: GeolocationOptions
+) {
+  throw new Error('addGeofences is not supported by the browser');
+}
+
+export function removeGeofences(_ids: string[]) {
+  throw new Error('removeGeofences is not supported by the browser');
+}
+
+export function clearGeofences() {
+  throw new Error('clearGeofences is not supported by the browser');
+}
+
+export function watchGeofences(
+  _listener: (transition: GeofenceTransition) => void
+): { remove: () => void } {
+  throw new Error('watchGeofences is not supported by the browser');
+}
+
+export function watchTiles(_listener: (change: TileChange) => void): {
+  remove: () => void;
+} {
+  throw new Error('watchTiles is not supported by the browser');
+}
+
 export function watchPosition(
   success: (position: GeolocationResponse) => void,
   error?: (error: GeolocationError) => void,
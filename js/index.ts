@@ -14,6 +14,17 @@ import type {
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  AuthorizationStatus,
+  LocationCacheStats,
+  LatencyHistogram,
+  GeolocationMetrics,
+  ProviderHealth,
+  TrackQuery,
+  TrackPage,
+  TrackExport,
+  Geofence,
+  GeofenceTransition,
+  TileChange,
 } from './NativeRNCGeolocation';
 
 const Geolocation = {
@@ -31,6 +42,133 @@ const Geolocation = {
     GeolocationModule.getCurrentPosition(success, error, options);
   },
 
+  /**
+   * Starts recording every location update to a native on-device log, also
+   * while JS is not listening. Supports the same options as `watchPosition`.
+   */
+  startRecording: function (options?: GeolocationOptions) {
+    GeolocationModule.startRecording(options);
+  },
+
+  /**
+   * Stops recording location updates. The recorded track is kept.
+   */
+  stopRecording: function () {
+    GeolocationModule.stopRecording();
+  },
+
+  /**
+   * Reads a page of recorded locations. Supported query fields: from (ms),
+   * to (ms), cursor (from the previous page), limit (number of locations)
+   */
+  readTrack: function (
+    success: (page: TrackPage) => void,
+    error?: (error: GeolocationError) => void,
+    query?: TrackQuery
+  ) {
+    GeolocationModule.readTrack(success, error, query);
+  },
+
+  /**
+   * Invokes the success callback with recorded locations in bulk, as one
+   * `Float64Array` per field. Supported query options are the same as for
+   * `readTrack`, with a limit of 100000 locations by default.
+   */
+  exportTrack: function (
+    success: (track: TrackExport) => void,
+    error?: (error: GeolocationError) => void,
+    query?: TrackQuery
+  ) {
+    GeolocationModule.exportTrack(success, error, query);
+  },
+
+  /**
+   * Returns the most recent location the native module has seen, from any
+   * source, or null if there is none yet. This is synchronous and cheap enough
+   * to call on every frame, but the location may be arbitrarily old: check its
+   * `timestamp`.
+   */
+  getLastKnownPositionSync: function (): GeolocationResponse | null {
+    return GeolocationModule.getLastKnownPositionSync();
+  },
+
+  /**
+   * Invokes the success callback with how often `getCurrentPosition` was
+   * answered from the native location cache (`hits`) or not (`misses`).
+   */
+  getLocationCacheStats: function (
+    success: (stats: LocationCacheStats) => void
+  ) {
+    GeolocationModule.getLocationCacheStats(success);
+  },
+
+  /**
+   * Invokes the success callback with counters and latency histograms of the
+   * native location pipeline, see `enableMetrics`.
+   */
+  getMetrics: function (success: (metrics: GeolocationMetrics) => void) {
+    GeolocationModule.getMetrics(success);
+  },
+
+  /**
+   * Invokes the listener with the metrics every `metricsInterval` ms. Call
+   * `remove()` on the result to stop listening.
+   */
+  watchMetrics: function (
+    listener: (metrics: GeolocationMetrics) => void
+  ): { remove: () => void } {
+    return GeolocationModule.watchMetrics(listener);
+  },
+
+  /**
+   * Starts monitoring the given geofences natively. Fences are circles
+   * (`latitude`, `longitude`, `radius` in meters) or polygons, optionally with
+   * a `dwellTime` (ms). Options are those of `watchPosition`, for the location
+   * updates the fences are tested against.
+   */
+  addGeofences: function (
+    fences: Geofence[],
+    error?: (error: GeolocationError) => void,
+    options?: GeolocationOptions
+  ) {
+    GeolocationModule.addGeofences(fences, error, options);
+  },
+
+  /**
+   * Stops monitoring the geofences with the given ids.
+   */
+  removeGeofences: function (ids: string[]) {
+    GeolocationModule.removeGeofences(ids);
+  },
+
+  /**
+   * Stops monitoring all geofences.
+   */
+  clearGeofences: function () {
+    GeolocationModule.clearGeofences();
+  },
+
+  /**
+   * Invokes the listener on every `enter`, `exit` and `dwell` transition of
+   * a monitored geofence. Call `remove()` on the result to stop listening.
+   */
+  watchGeofences: function (
+    listener: (transition: GeofenceTransition) => void
+  ): { remove: () => void } {
+    return GeolocationModule.watchGeofences(listener);
+  },
+
+  /**
+   * Invokes the listener whenever a watched location is in another geohash
+   * cell or tile than the previous one, see `geohashPrecision` and `tileZoom`.
+   * Call `remove()` on the result to stop listening.
+   */
+  watchTiles: function (listener: (change: TileChange) => void): {
+    remove: () => void;
+  } {
+    return GeolocationModule.watchTiles(listener);
+  },
+
   /**
    * Invokes the success callback whenever the location changes.  Supported
    * options: timeout (ms), maximumAge (ms), enableHighAccuracy (bool), distanceFilter(m)
@@ -67,6 +205,16 @@ const Geolocation = {
     GeolocationModule.requestAuthorization(success, error);
   },
 
+  /**
+   * Returns whether the app may use locations: `granted`, `approximate` (only
+   * coarse locations on Android, reduced accuracy on iOS), `denied`, or on iOS
+   * `undetermined`. Synchronous, so that permission prompts can be skipped
+   * when they are not needed.
+   */
+  getAuthorizationStatusSync: function (): AuthorizationStatus {
+    return GeolocationModule.getAuthorizationStatusSync();
+  },
+
   setRNConfiguration: function (config: GeolocationConfiguration) {
     GeolocationModule.setRNConfiguration(config);
   },
@@ -77,6 +225,17 @@ export type {
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  AuthorizationStatus,
+  LocationCacheStats,
+  LatencyHistogram,
+  GeolocationMetrics,
+  ProviderHealth,
+  TrackQuery,
+  TrackPage,
+  TrackExport,
+  Geofence,
+  GeofenceTransition,
+  TileChange,
 };
 
 export default Geolocation;
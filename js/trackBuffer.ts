@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) React Native Community
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ *
+ * @format
+ */
+
+import type { PackedTrack, TrackExport } from './NativeRNCGeolocation';
+
+const BASE64_ALPHABET =
+  'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/';
+
+const BASE64_LOOKUP = new Uint8Array(128);
+for (let i = 0; i < BASE64_ALPHABET.length; i++) {
+  BASE64_LOOKUP[BASE64_ALPHABET.charCodeAt(i)] = i;
+}
+
+/**
+ * Decodes padded base64 into a new ArrayBuffer, which `atob` cannot do
+ * without going through a binary string.
+ */
+export function base64ToArrayBuffer(base64: string): ArrayBuffer {
+  let padding = 0;
+  if (base64.endsWith('==')) {
+    padding = 2;
+  } else if (base64.endsWith('=')) {
+    padding = 1;
+  }
+  const bytes = new Uint8Array((base64.length / 4) * 3 - padding);
+
+  let j = 0;
+  for (let i = 0; i < base64.length; i += 4) {
+    const chunk =
+      (BASE64_LOOKUP[base64.charCodeAt(i)] << 18) |
+      (BASE64_LOOKUP[base64.charCodeAt(i + 1)] << 12) |
+      (BASE64_LOOKUP[base64.charCodeAt(i + 2)] << 6) |
+      BASE64_LOOKUP[base64.charCodeAt(i + 3)];
+    bytes[j++] = chunk >> 16;
+    if (j < bytes.length) {
+      bytes[j++] = (chunk >> 8) & 0xff;
+    }
+    if (j < bytes.length) {
+      bytes[j++] = chunk & 0xff;
+    }
+  }
+  return bytes.buffer;
+}
+
+/**
+ * Turns a track packed by the native module into one `Float64Array` view per
+ * column, all sharing the decoded buffer.
+ */
+export function unpackTrack({ count, data, cursor }: PackedTrack): TrackExport {
+  const values = new Float64Array(base64ToArrayBuffer(data));
+  const column = (index: number) =>
+    values.subarray(index * count, (index + 1) * count);
+  return {
+    count,
+    cursor,
+    columns: {
+      latitude: column(0),
+      longitude: column(1),
+      altitude: column(2),
+      accuracy: column(3),
+      heading: column(4),
+      speed: column(5),
+      timestamp: column(6),
+    },
+  };
+}